@@ -0,0 +1,65 @@
+#!/bin/bash
+
+# 重複任務批量插入基準測試腳本
+# 測量物化一個1000個實例的每日重複系列的插入速率
+#
+# 用法：
+#   ./benchmark_bulk_insert.sh [基礎URL] [輪數] [用戶ID]
+#
+# 對比方式：
+#   - H2：以預設配置啟動應用（mvn spring-boot:run）後執行
+#   - PostgreSQL：以 production 配置並設定 DATABASE_URL/DB_DRIVER/HIBERNATE_DIALECT 啟動後執行
+#   - 優化前：在優化前的版本上執行（該版本不支援 materialize 參數，會逐筆 save）
+#   - 優化後：在目前版本上執行（序列預分配主鍵 + JDBC 批處理）
+
+BASE_URL=${1:-http://localhost:8080}
+ROUNDS=${2:-5}
+USER_ID=${3:-1}
+OCCURRENCES=1000
+
+echo "🏁 開始批量插入基準測試..."
+echo "目標: $BASE_URL，輪數: $ROUNDS，每輪實例數: $OCCURRENCES"
+echo "=================================="
+
+TOTAL_MS=0
+TOTAL_ROWS=0
+
+for ROUND in $(seq 1 $ROUNDS); do
+    # 創建系列的原始任務
+    TASK_RESPONSE=$(curl -s -H "X-User-Id: $USER_ID" -X POST "$BASE_URL/api/tasks" \
+      -H "Content-Type: application/json" \
+      -d '{
+        "title": "批量插入基準測試",
+        "startTime": "2024-01-01 09:00:00",
+        "endTime": "2024-01-01 10:00:00",
+        "priority": "MEDIUM",
+        "category": "benchmark"
+      }')
+    TASK_ID=$(echo $TASK_RESPONSE | grep -o '"id":[0-9]*' | head -1 | cut -d':' -f2)
+
+    if [ -z "$TASK_ID" ]; then
+        echo "❌ 無法創建原始任務: $TASK_RESPONSE"
+        exit 1
+    fi
+
+    # 每日重複，結束日期保證產生 OCCURRENCES 個實例（含原始任務）
+    START_NS=$(date +%s%N)
+    REPEAT_RESPONSE=$(curl -s -H "X-User-Id: $USER_ID" -X POST "$BASE_URL/api/tasks/$TASK_ID/repeat?repeatType=DAILY&repeatInterval=1&repeatEndDate=2026-09-27%2009:00:01&materialize=true")
+    END_NS=$(date +%s%N)
+
+    ROWS=$(echo "$REPEAT_RESPONSE" | grep -o '"id":[0-9]*' | wc -l)
+    ELAPSED_MS=$(( (END_NS - START_NS) / 1000000 ))
+    TOTAL_MS=$(( TOTAL_MS + ELAPSED_MS ))
+    TOTAL_ROWS=$(( TOTAL_ROWS + ROWS ))
+
+    echo "第 $ROUND 輪：插入 $ROWS 筆，耗時 ${ELAPSED_MS}ms"
+
+    # 清理本輪數據
+    curl -s -H "X-User-Id: $USER_ID" -X DELETE "$BASE_URL/api/tasks/$TASK_ID/repeating" > /dev/null
+    curl -s -H "X-User-Id: $USER_ID" -X DELETE "$BASE_URL/api/tasks/$TASK_ID" > /dev/null
+done
+
+echo "=================================="
+if [ $TOTAL_MS -gt 0 ]; then
+    echo "📊 平均插入速率: $(( TOTAL_ROWS * 1000 / TOTAL_MS )) 筆/秒"
+fi
@@ -0,0 +1,150 @@
+#!/bin/bash
+
+# 虛擬線程模式對比腳本
+# 分別以平台線程（預設）及虛擬線程（virtual profile）啟動應用，
+# 對任務列表（/api/tasks）及日曆（/api/tasks/this-month）做相同的併發壓測，比較吞吐量及 p99 延遲
+#
+# 用法：
+#   ./benchmark_virtual_threads.sh [併發數] [每個端點請求數] [任務數] [JDBC URL]
+#
+# 說明：
+#   - 需要 Java 21（虛擬線程）、ApacheBench（ab）及已打包的 target/calendar-task-system-1.0.0.jar
+#   - 每種模式使用全新的資料庫並寫入相同的測試數據；預設為記憶體 H2，
+#     查詢耗時極短，阻塞 JDBC 的差異不明顯，建議傳入 PostgreSQL 的 JDBC URL（每輪前需自行清空）
+#   - 兩種模式的連接池大小相同（DB_POOL_SIZE，預設20），差異只來自請求執行模型
+#   - 關閉 SQL 及 DEBUG 日誌，避免日誌輸出成為瓶頸；關閉讀取快取，使每個請求都經過 JDBC
+
+CONCURRENCY=${1:-200}
+REQUESTS=${2:-20000}
+TASKS=${3:-500}
+JDBC_URL=${4:-}
+PORT=${PORT:-18080}
+POOL_SIZE=${DB_POOL_SIZE:-20}
+JAR=target/calendar-task-system-1.0.0.jar
+BASE_URL="http://localhost:$PORT"
+
+for CMD in java ab curl; do
+    if ! command -v $CMD &> /dev/null; then
+        echo "❌ 錯誤：未找到 $CMD"
+        exit 1
+    fi
+done
+if [ ! -f "$JAR" ]; then
+    echo "❌ 錯誤：未找到 $JAR，請先執行 mvn package -DskipTests"
+    exit 1
+fi
+JAVA_MAJOR=$(java -version 2>&1 | head -n 1 | sed -E 's/.*version "([0-9]+).*/\1/')
+if [ "$JAVA_MAJOR" -lt 21 ]; then
+    echo "❌ 錯誤：虛擬線程需要 Java 21，當前為 $JAVA_MAJOR"
+    exit 1
+fi
+
+echo "🏁 開始虛擬線程對比..."
+echo "併發: $CONCURRENCY，每個端點請求數: $REQUESTS，任務數: $TASKS，連接池: $POOL_SIZE"
+echo "=================================="
+
+APP_PID=""
+cleanup() {
+    if [ -n "$APP_PID" ]; then
+        kill $APP_PID 2>/dev/null
+        wait $APP_PID 2>/dev/null
+    fi
+}
+trap cleanup EXIT
+
+# 啟動應用並等待健康檢查通過
+start_app() {
+    local PROFILE=$1
+    local RUN=$2
+    local URL=${JDBC_URL:-jdbc:h2:mem:bench_$RUN;DB_CLOSE_DELAY=-1}
+    DB_POOL_SIZE=$POOL_SIZE java -jar "$JAR" \
+      --server.port=$PORT \
+      --spring.profiles.active=$PROFILE \
+      --spring.datasource.url="$URL" \
+      --spring.datasource.hikari.maximum-pool-size=$POOL_SIZE \
+      --spring.jpa.show-sql=false \
+      --app.cache.ttl-seconds=0 \
+      --logging.level.com.taskmanager=WARN \
+      --logging.level.org.springframework.web=WARN > /tmp/benchmark_virtual_$RUN.log 2>&1 &
+    APP_PID=$!
+    for i in $(seq 1 60); do
+        if curl -s "$BASE_URL/api/health" > /dev/null; then
+            return 0
+        fi
+        sleep 1
+    done
+    echo "❌ 應用啟動失敗，見 /tmp/benchmark_virtual_$RUN.log"
+    exit 1
+}
+
+# 註冊測試用戶並寫入本月的測試任務，輸出用戶ID
+seed() {
+    local RUN=$1
+    local RESPONSE=$(curl -s -X POST "$BASE_URL/api/users/register" \
+      -H "Content-Type: application/json" \
+      -d "{\"username\": \"bench_$RUN\", \"email\": \"bench_$RUN@example.com\", \"password\": \"benchmark123\"}")
+    local USER_ID=$(echo $RESPONSE | grep -o '"id":[0-9]*' | head -1 | cut -d':' -f2)
+    if [ -z "$USER_ID" ]; then
+        echo "❌ 無法創建測試用戶: $RESPONSE" >&2
+        exit 1
+    fi
+
+    local MONTH_START=$(date +%Y-%m-01)
+    local BODY="["
+    for i in $(seq 1 $TASKS); do
+        local DAY=$(( (i % 28) + 1 ))
+        local HOUR=$(( (i % 10) + 8 ))
+        local DATE=$(date -d "$MONTH_START +$((DAY - 1)) day" +%Y-%m-%d)
+        [ $i -gt 1 ] && BODY+=","
+        BODY+="{\"title\": \"壓測任務 $i\", \"description\": \"虛擬線程對比 $i\","
+        BODY+="\"startTime\": \"$DATE $(printf %02d $HOUR):00:00\", \"endTime\": \"$DATE $(printf %02d $HOUR):30:00\","
+        BODY+="\"priority\": \"MEDIUM\", \"category\": \"benchmark\"}"
+    done
+    BODY+="]"
+    curl -s -o /dev/null -H "X-User-Id: $USER_ID" -X POST "$BASE_URL/api/tasks/bulk" \
+      -H "Content-Type: application/json" -d "$BODY"
+    echo $USER_ID
+}
+
+# 壓測單個端點，輸出 "每秒請求數 p99毫秒 失敗數"
+run_ab() {
+    local USER_ID=$1
+    local ENDPOINT=$2
+    ab -q -k -c $CONCURRENCY -n $REQUESTS -H "X-User-Id: $USER_ID" "$BASE_URL$ENDPOINT" > /tmp/benchmark_virtual_ab.txt 2>&1
+    local RPS=$(grep "Requests per second" /tmp/benchmark_virtual_ab.txt | awk '{print $4}')
+    local P99=$(grep "  99%" /tmp/benchmark_virtual_ab.txt | awk '{print $2}')
+    local FAILED=$(grep "Failed requests" /tmp/benchmark_virtual_ab.txt | awk '{print $3}')
+    local NON_2XX=$(grep "Non-2xx responses" /tmp/benchmark_virtual_ab.txt | awk '{print $3}')
+    echo "${RPS:-0} ${P99:-0} $(( ${FAILED:-0} + ${NON_2XX:-0} ))"
+}
+
+declare -A RESULTS
+RUN=0
+for MODE in platform virtual; do
+    RUN=$((RUN + 1))
+    PROFILE=default
+    [ "$MODE" = "virtual" ] && PROFILE=virtual
+    echo "▶ $MODE 模式啟動中..."
+    start_app $PROFILE $RUN
+    USER_ID=$(seed $RUN)
+
+    for ENDPOINT in "/api/tasks?size=100" "/api/tasks/this-month"; do
+        # 預熱：讓 JIT 及連接池穩定
+        ab -q -k -c $CONCURRENCY -n $(( REQUESTS / 4 )) -H "X-User-Id: $USER_ID" "$BASE_URL$ENDPOINT" > /dev/null 2>&1
+        RESULTS["$MODE $ENDPOINT"]=$(run_ab $USER_ID "$ENDPOINT")
+    done
+
+    cleanup
+    APP_PID=""
+done
+
+echo ""
+printf "%-24s %-10s %12s %10s %8s\n" "端點" "模式" "請求/秒" "p99(ms)" "失敗"
+for ENDPOINT in "/api/tasks?size=100" "/api/tasks/this-month"; do
+    for MODE in platform virtual; do
+        read RPS P99 FAILED <<< "${RESULTS["$MODE $ENDPOINT"]}"
+        printf "%-24s %-10s %12s %10s %8s\n" "$ENDPOINT" "$MODE" "$RPS" "$P99" "$FAILED"
+    done
+done
+echo ""
+echo "✅ 對比完成（應用日誌：/tmp/benchmark_virtual_*.log）"
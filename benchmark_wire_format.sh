@@ -0,0 +1,129 @@
+#!/bin/bash
+
+# 日曆響應格式對比腳本
+# 對比 /api/tasks/this-month 的普通 JSON 與列式格式（application/vnd.taskmanager.columns+json）
+# 的響應大小、伺服器處理時間及伺服器 CPU 時間
+#
+# 用法：
+#   ./benchmark_wire_format.sh [基礎URL] [輪數] [用戶ID] [系列數] [CPU輪數]
+#
+# 說明：
+#   - 腳本先為本月創建若干個已物化的每日重複系列作為測試數據，結束後刪除
+#   - 處理時間取 curl 的 time_starttransfer（首字節時間），主要反映查詢及序列化耗時
+#   - CPU 時間讀取伺服器進程的 /proc/<pid>/stat（用戶態 + 內核態），按請求數平均；
+#     兩種格式的查詢相同，差值即序列化成本。只在伺服器與腳本位於同一台機器時可用，
+#     進程按監聽埠自動查找，也可以用 SERVER_PID 指定
+#   - 同時列出 gzip 壓縮後的大小，供啟用響應壓縮時參考
+
+BASE_URL=${1:-http://localhost:8080}
+ROUNDS=${2:-20}
+USER_ID=${3:-1}
+SERIES=${4:-10}
+CPU_ROUNDS=${5:-200}
+COLUMNS_TYPE="application/vnd.taskmanager.columns+json"
+PORT=$(echo "$BASE_URL" | sed -E 's#^[a-z]+://[^:/]+:?([0-9]*).*#\1#')
+PORT=${PORT:-80}
+if [ -z "$SERVER_PID" ]; then
+    SERVER_PID=$(ss -Hltnp "sport = :$PORT" 2>/dev/null | grep -o 'pid=[0-9]*' | head -1 | cut -d'=' -f2)
+fi
+if [ -z "$SERVER_PID" ] && command -v lsof &> /dev/null; then
+    SERVER_PID=$(lsof -t -iTCP:$PORT -sTCP:LISTEN 2>/dev/null | head -1)
+fi
+CLK_TCK=$(getconf CLK_TCK)
+
+MONTH_START=$(date +%Y-%m-01)
+MONTH_END=$(date -d "$MONTH_START +1 month -1 day" +%Y-%m-%d)
+
+echo "🏁 開始響應格式對比..."
+echo "目標: $BASE_URL，輪數: $ROUNDS，系列數: $SERIES（$MONTH_START ~ $MONTH_END）"
+echo "=================================="
+
+SERIES_IDS=()
+for i in $(seq 1 $SERIES); do
+    TASK_RESPONSE=$(curl -s -H "X-User-Id: $USER_ID" -X POST "$BASE_URL/api/tasks" \
+      -H "Content-Type: application/json" \
+      -d "{
+        \"title\": \"格式對比測試 $i\",
+        \"description\": \"每日例行事項 $i\",
+        \"startTime\": \"$MONTH_START 09:00:00\",
+        \"endTime\": \"$MONTH_START 10:00:00\",
+        \"priority\": \"MEDIUM\",
+        \"category\": \"benchmark\"
+      }")
+    TASK_ID=$(echo $TASK_RESPONSE | grep -o '"id":[0-9]*' | head -1 | cut -d':' -f2)
+
+    if [ -z "$TASK_ID" ]; then
+        echo "❌ 無法創建測試任務: $TASK_RESPONSE"
+        exit 1
+    fi
+
+    curl -s -H "X-User-Id: $USER_ID" -X POST \
+      "$BASE_URL/api/tasks/$TASK_ID/repeat?repeatType=DAILY&repeatInterval=1&repeatEndDate=$MONTH_END%2009:00:00&materialize=true" > /dev/null
+    SERIES_IDS+=($TASK_ID)
+done
+
+# 對指定 Accept 執行多輪請求，輸出 "響應位元組 gzip位元組 平均毫秒"
+measure() {
+    local ACCEPT=$1
+    local TOTAL_US=0
+    local BYTES=0
+    for ROUND in $(seq 1 $ROUNDS); do
+        RESULT=$(curl -s -o /tmp/wire_format_body -w "%{size_download} %{time_starttransfer}" \
+          -H "X-User-Id: $USER_ID" -H "Accept: $ACCEPT" "$BASE_URL/api/tasks/this-month")
+        BYTES=$(echo $RESULT | cut -d' ' -f1)
+        SECONDS_TTFB=$(echo $RESULT | cut -d' ' -f2)
+        TOTAL_US=$(( TOTAL_US + $(echo "$SECONDS_TTFB * 1000000 / 1" | bc) ))
+    done
+    GZIP_BYTES=$(gzip -c /tmp/wire_format_body | wc -c)
+    echo "$BYTES $GZIP_BYTES $(echo "scale=2; $TOTAL_US / $ROUNDS / 1000" | bc)"
+}
+
+# 伺服器進程累計的 CPU 時間（時鐘週期，用戶態 + 內核態）
+server_cpu_ticks() {
+    # 第2欄的進程名可能含空格，從最後一個右括號之後開始數欄位
+    sed -E 's/^.*\) //' /proc/$SERVER_PID/stat | awk '{print $12 + $13}'
+}
+
+# 對指定 Accept 連續執行 CPU_ROUNDS 次請求，輸出每個請求平均消耗的伺服器 CPU 毫秒數
+measure_cpu() {
+    local ACCEPT=$1
+    local BEFORE=$(server_cpu_ticks)
+    for ROUND in $(seq 1 $CPU_ROUNDS); do
+        curl -s -o /dev/null -H "X-User-Id: $USER_ID" -H "Accept: $ACCEPT" "$BASE_URL/api/tasks/this-month"
+    done
+    local AFTER=$(server_cpu_ticks)
+    echo "scale=3; ($AFTER - $BEFORE) * 1000 / $CLK_TCK / $CPU_ROUNDS" | bc
+}
+
+# 預熱
+measure "application/json" > /dev/null
+measure "$COLUMNS_TYPE" > /dev/null
+
+read JSON_BYTES JSON_GZIP JSON_MS <<< "$(measure "application/json")"
+read COL_BYTES COL_GZIP COL_MS <<< "$(measure "$COLUMNS_TYPE")"
+ROWS=$(curl -s -H "X-User-Id: $USER_ID" "$BASE_URL/api/tasks/this-month" | grep -o '"id":[0-9]*' | wc -l)
+
+JSON_CPU=""
+COL_CPU=""
+if [ -n "$SERVER_PID" ] && [ -r "/proc/$SERVER_PID/stat" ]; then
+    JSON_CPU=$(measure_cpu "application/json")
+    COL_CPU=$(measure_cpu "$COLUMNS_TYPE")
+fi
+
+echo "本月任務數: $ROWS"
+echo "JSON : ${JSON_BYTES} 位元組（gzip ${JSON_GZIP}），平均 ${JSON_MS}ms${JSON_CPU:+，CPU ${JSON_CPU}ms/請求}"
+echo "列式 : ${COL_BYTES} 位元組（gzip ${COL_GZIP}），平均 ${COL_MS}ms${COL_CPU:+，CPU ${COL_CPU}ms/請求}"
+if [ "$JSON_BYTES" -gt 0 ]; then
+    echo "📊 列式大小為 JSON 的 $(( COL_BYTES * 100 / JSON_BYTES ))%"
+fi
+if [ -z "$JSON_CPU" ]; then
+    echo "⚠️ 未找到監聽 $PORT 埠的本機進程，略過 CPU 時間（可設定 SERVER_PID）"
+fi
+
+# 清理測試數據
+for TASK_ID in "${SERIES_IDS[@]}"; do
+    curl -s -H "X-User-Id: $USER_ID" -X DELETE "$BASE_URL/api/tasks/$TASK_ID/repeating" > /dev/null
+    curl -s -H "X-User-Id: $USER_ID" -X DELETE "$BASE_URL/api/tasks/$TASK_ID" > /dev/null
+done
+rm -f /tmp/wire_format_body
+echo "=================================="
@@ -0,0 +1,22 @@
+-- 數據庫遷移腳本：重複任務改為按需展開
+-- 版本：1.2.0
+-- 適用：H2 / PostgreSQL
+
+-- 重複系列只在原始任務上保存規則，實例在查詢時展開。
+-- 已經物化（實例另存為資料列）的舊系列保持原樣，標記為已物化以免重複展開。
+
+-- 1. 添加物化標記字段
+ALTER TABLE tasks ADD COLUMN IF NOT EXISTS repeat_materialized BOOLEAN DEFAULT FALSE;
+
+-- 2. 已有子任務的舊系列標記為已物化
+UPDATE tasks SET repeat_materialized = TRUE
+WHERE id IN (SELECT DISTINCT original_task_id FROM tasks WHERE original_task_id IS NOT NULL);
+
+-- 3. 其餘任務標記為未物化
+UPDATE tasks SET repeat_materialized = FALSE WHERE repeat_materialized IS NULL;
+
+-- 4. 驗證遷移結果
+SELECT
+    COUNT(CASE WHEN repeat_type != 'NONE' AND repeat_materialized = FALSE AND original_task_id IS NULL THEN 1 END) as virtual_series,
+    COUNT(CASE WHEN repeat_materialized = TRUE THEN 1 END) as materialized_series
+FROM tasks;
@@ -0,0 +1,24 @@
+-- 數據庫遷移腳本：任務主鍵改用序列分配
+-- 版本：1.3.0
+-- 適用：H2 / PostgreSQL
+
+-- tasks.id 由 IDENTITY 改為序列 tasks_seq（每次預分配50個），
+-- 使 Hibernate 可以對 INSERT 使用 JDBC 批處理。
+-- 序列必須從現有最大ID之後開始，否則新任務會與舊資料主鍵衝突。
+-- 請在部署新版本前執行。
+
+-- ===== PostgreSQL =====
+CREATE SEQUENCE IF NOT EXISTS tasks_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('tasks_seq', (SELECT COALESCE(MAX(id), 0) + 100 FROM tasks), false);
+
+-- ===== H2 =====
+-- RESTART WITH 只接受常量，以 EXECUTE IMMEDIATE 拼出起始值（H2 2.x）
+CREATE SEQUENCE IF NOT EXISTS tasks_seq START WITH 1 INCREMENT BY 50;
+EXECUTE IMMEDIATE 'ALTER SEQUENCE tasks_seq RESTART WITH ' || (SELECT COALESCE(MAX(id), 0) + 100 FROM tasks);
+
+-- 應用啟動時 TaskIdSequenceInitializer 也會做同樣的檢查，
+-- 未執行本腳本、由 ddl-auto=update 新建序列時不會產生主鍵衝突。
+-- 只執行對應資料庫的部分。
+
+-- 遷移完成提示
+SELECT 'Database migration 1.3.0 completed successfully!' as status;
@@ -0,0 +1,24 @@
+-- 數據庫遷移腳本：按實際查詢路徑建立索引
+-- 版本：1.4.0
+-- 適用：H2 / PostgreSQL
+
+-- 今日/本週/本月/日期範圍、即將到期、過期任務等查詢已改寫為半開區間謂詞，
+-- 以下索引與這些查詢一一對應。
+
+-- 1. 用戶日曆視圖：按用戶及開始時間
+CREATE INDEX IF NOT EXISTS idx_tasks_user_start ON tasks(user_id, start_time);
+
+-- 2. 鍵集分頁及日期範圍查詢：按 (start_time, id) 排序
+CREATE INDEX IF NOT EXISTS idx_tasks_start_id ON tasks(start_time, id);
+
+-- 3. 跨越窗口起點的多日任務：按結束時間
+CREATE INDEX IF NOT EXISTS idx_tasks_end_time ON tasks(end_time);
+
+-- 4. 過期任務：status IN ('PENDING', 'IN_PROGRESS') AND end_time < ?
+CREATE INDEX IF NOT EXISTS idx_tasks_status_end ON tasks(status, end_time);
+
+-- 5. 重複系列（1.1.0 已建立，此處確保存在）
+CREATE INDEX IF NOT EXISTS idx_tasks_original_task_id ON tasks(original_task_id);
+
+-- 遷移完成提示
+SELECT 'Database migration 1.4.0 completed successfully!' as status;
@@ -0,0 +1,24 @@
+-- 數據庫遷移腳本：按用戶分區的複合索引
+-- 版本：1.5.0
+-- 適用：H2 / PostgreSQL
+
+-- 所有任務查詢都以 user_id 為首個條件，以下索引以 user_id 開頭，
+-- 單次請求只掃描該用戶的索引範圍。
+
+-- 1. 用戶任務列表、日曆視圖、即將到期：按 (user_id, start_time, id) 排序及鍵集分頁
+CREATE INDEX IF NOT EXISTS idx_tasks_user_start_id ON tasks(user_id, start_time, id);
+
+-- 2. 跨越窗口起點的多日任務：按用戶及結束時間
+CREATE INDEX IF NOT EXISTS idx_tasks_user_end ON tasks(user_id, end_time);
+
+-- 3. 過期任務：user_id = ? AND status IN ('PENDING', 'IN_PROGRESS') AND end_time < ?
+CREATE INDEX IF NOT EXISTS idx_tasks_user_status_end ON tasks(user_id, status, end_time);
+
+-- 4. 以上索引覆蓋了 1.4.0 中不含 user_id 的版本，刪除以減少寫入開銷
+--    idx_tasks_start_id 保留，供記憶體索引啟動時全表分頁載入
+DROP INDEX IF EXISTS idx_tasks_user_start;
+DROP INDEX IF EXISTS idx_tasks_end_time;
+DROP INDEX IF EXISTS idx_tasks_status_end;
+
+-- 遷移完成提示
+SELECT 'Database migration 1.5.0 completed successfully!' as status;
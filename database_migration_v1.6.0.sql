@@ -0,0 +1,15 @@
+-- 數據庫遷移腳本：任務樂觀鎖版本號
+-- 版本：1.6.0
+-- 適用：H2 / PostgreSQL
+
+-- 1. 添加版本號欄位，每次寫入加一，用於檢測併發修改
+ALTER TABLE tasks ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0;
+
+-- 2. 舊資料從版本0開始
+UPDATE tasks SET version = 0 WHERE version IS NULL;
+
+-- 3. 版本號不可為空（部分更新以 version = version + 1 遞增）
+ALTER TABLE tasks ALTER COLUMN version SET NOT NULL;
+
+-- 遷移完成提示
+SELECT 'Database migration 1.6.0 completed successfully!' as status;
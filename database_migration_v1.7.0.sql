@@ -0,0 +1,30 @@
+-- 數據庫遷移腳本：增量同步變更序號
+-- 版本：1.7.0
+-- 適用：H2 / PostgreSQL
+
+-- 1. 用戶的任務變更序號，每個寫入事務遞增一次
+ALTER TABLE users ADD COLUMN IF NOT EXISTS change_seq BIGINT DEFAULT 0 NOT NULL;
+
+-- 2. 任務最後一次寫入時的變更序號（舊資料為空，不出現在增量結果中）
+ALTER TABLE tasks ADD COLUMN IF NOT EXISTS change_seq BIGINT;
+
+-- 3. 按用戶及序號查詢變更
+CREATE INDEX IF NOT EXISTS idx_tasks_user_change_seq ON tasks(user_id, change_seq);
+
+-- 4. 任務刪除記錄
+CREATE SEQUENCE IF NOT EXISTS task_tombstones_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS task_tombstones (
+    id BIGINT PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    task_id BIGINT NOT NULL,
+    series BOOLEAN NOT NULL DEFAULT FALSE,
+    from_time TIMESTAMP,
+    change_seq BIGINT NOT NULL,
+    deleted_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_task_tombstones_user_seq ON task_tombstones(user_id, change_seq);
+
+-- 遷移完成提示
+SELECT 'Database migration 1.7.0 completed successfully!' as status;
@@ -0,0 +1,15 @@
+-- 數據庫遷移腳本：用戶樂觀鎖版本號
+-- 版本：1.8.0
+-- 適用：H2 / PostgreSQL
+
+-- 1. 添加版本號欄位，每次保存用戶時加一，用於檢測登入與資料修改之間的併發寫入
+ALTER TABLE users ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0;
+
+-- 2. 舊資料從版本0開始（版本號為空的實體會被視為未保存）
+UPDATE users SET version = 0 WHERE version IS NULL;
+
+-- 3. 版本號不可為空
+ALTER TABLE users ALTER COLUMN version SET NOT NULL;
+
+-- 遷移完成提示
+SELECT 'Database migration 1.8.0 completed successfully!' as status;
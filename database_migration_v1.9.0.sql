@@ -0,0 +1,12 @@
+-- 數據庫遷移腳本：增量同步刪除記錄清理
+-- 版本：1.9.0
+-- 適用：H2 / PostgreSQL
+
+-- 1. 用戶已清理的刪除記錄中最大的變更序號，早於此序號的同步令牌須重新完整載入
+ALTER TABLE users ADD COLUMN IF NOT EXISTS tombstones_purged_seq BIGINT DEFAULT 0 NOT NULL;
+
+-- 2. 按刪除時間清理超過保留期的記錄
+CREATE INDEX IF NOT EXISTS idx_task_tombstones_deleted_at ON task_tombstones(deleted_at);
+
+-- 遷移完成提示
+SELECT 'Database migration 1.9.0 completed successfully!' as status;
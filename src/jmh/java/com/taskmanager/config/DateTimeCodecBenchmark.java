@@ -0,0 +1,133 @@
+package com.taskmanager.config;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DateTimeCodec 與 DateTimeFormatter / @JsonFormat 的對比
+ *
+ * 說明：
+ * - format/parse 比較單個值的編解碼，formatter 使用預先建立的共用 DateTimeFormatter
+ * - json 比較帶三個時間欄位的物件經 ObjectMapper 的讀寫：
+ *   jsonFormat 為原有的 JavaTimeModule + 逐欄位 @JsonFormat，codec 為 DateTimeCodecModule
+ *
+ * 執行：mvn -Pjmh -Dassets.skip=true compile exec:exec
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DateTimeCodecBenchmark {
+
+    private LocalDateTime value;
+    private String text;
+
+    private ObjectMapper jsonFormatMapper;
+    private ObjectMapper codecMapper;
+    private JsonFormatTimes jsonFormatTimes;
+    private CodecTimes codecTimes;
+    private String timesJson;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        value = LocalDateTime.of(2024, 3, 15, 9, 30, 45);
+        text = DateTimeCodec.format(value);
+
+        jsonFormatMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        codecMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+            .registerModule(new DateTimeCodecModule(false));
+        jsonFormatTimes = new JsonFormatTimes(value, value.plusHours(1), value.minusDays(2));
+        codecTimes = new CodecTimes(value, value.plusHours(1), value.minusDays(2));
+        timesJson = codecMapper.writeValueAsString(codecTimes);
+    }
+
+    @Benchmark
+    public String formatFormatter() {
+        return DateTimeCodec.FORMATTER.format(value);
+    }
+
+    @Benchmark
+    public String formatCodec() {
+        return DateTimeCodec.format(value);
+    }
+
+    @Benchmark
+    public LocalDateTime parseFormatter() {
+        return LocalDateTime.parse(text, DateTimeCodec.FORMATTER);
+    }
+
+    @Benchmark
+    public LocalDateTime parseCodec() {
+        return DateTimeCodec.parse(text);
+    }
+
+    @Benchmark
+    public String writeJsonFormat() throws JsonProcessingException {
+        return jsonFormatMapper.writeValueAsString(jsonFormatTimes);
+    }
+
+    @Benchmark
+    public String writeCodec() throws JsonProcessingException {
+        return codecMapper.writeValueAsString(codecTimes);
+    }
+
+    @Benchmark
+    public JsonFormatTimes readJsonFormat() throws JsonProcessingException {
+        return jsonFormatMapper.readValue(timesJson, JsonFormatTimes.class);
+    }
+
+    @Benchmark
+    public CodecTimes readCodec() throws JsonProcessingException {
+        return codecMapper.readValue(timesJson, CodecTimes.class);
+    }
+
+    /**
+     * 原有寫法：每個欄位以 @JsonFormat 指定格式
+     */
+    public static class JsonFormatTimes {
+        @JsonFormat(pattern = DateTimeCodec.PATTERN)
+        public LocalDateTime startTime;
+        @JsonFormat(pattern = DateTimeCodec.PATTERN)
+        public LocalDateTime endTime;
+        @JsonFormat(pattern = DateTimeCodec.PATTERN)
+        public LocalDateTime updatedAt;
+
+        public JsonFormatTimes() {
+        }
+
+        JsonFormatTimes(LocalDateTime startTime, LocalDateTime endTime, LocalDateTime updatedAt) {
+            this.startTime = startTime;
+            this.endTime = endTime;
+            this.updatedAt = updatedAt;
+        }
+    }
+
+    /**
+     * 現有寫法：不帶註解，由 DateTimeCodecModule 統一處理
+     */
+    public static class CodecTimes {
+        public LocalDateTime startTime;
+        public LocalDateTime endTime;
+        public LocalDateTime updatedAt;
+
+        public CodecTimes() {
+        }
+
+        CodecTimes(LocalDateTime startTime, LocalDateTime endTime, LocalDateTime updatedAt) {
+            this.startTime = startTime;
+            this.endTime = endTime;
+            this.updatedAt = updatedAt;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+// 靜態資源構建：壓縮、內容指紋及預壓縮
+//
+// 用法：node build-assets.mjs [來源目錄] [輸出目錄]，預設為 ../resources/static 及 ../../../target/classes/static
+// - js/*.js 及 css/*.css 以 esbuild 壓縮（不打包，頂層名稱保持不變，腳本之間仍以全域變數互相引用）
+// - 按壓縮後內容的 SHA-256 前10位命名，輸出到 <輸出目錄>/assets/，同時寫出 .gz 及 .br 預壓縮版本
+// - 改寫 index.html 及 login.html 中的引用，指向帶指紋的檔案；原始檔案保留在原位置
+// - 寫出 assets/manifest.json 記錄原始路徑到指紋路徑的對應
+//
+// 由 pom.xml 在 process-classes 階段調用，在資源複製之後覆蓋 HTML
+
+import { transform } from 'esbuild';
+import { createHash } from 'node:crypto';
+import { mkdir, readdir, readFile, writeFile } from 'node:fs/promises';
+import { basename, extname, join } from 'node:path';
+import { brotliCompressSync, constants, gzipSync } from 'node:zlib';
+
+const [source = '../resources/static', output = '../../../target/classes/static'] = process.argv.slice(2);
+
+const ASSET_DIRS = { js: 'js', css: 'css' };
+const HTML_PAGES = ['index.html', 'login.html'];
+const HASH_LENGTH = 10;
+
+async function listAssets(dir, extension) {
+    const entries = await readdir(join(source, dir));
+    return entries.filter(name => extname(name) === extension).sort();
+}
+
+async function writeCompressed(path, content) {
+    await writeFile(path, content);
+    await writeFile(path + '.gz', gzipSync(content, { level: 9 }));
+    await writeFile(path + '.br', brotliCompressSync(content, {
+        params: {
+            [constants.BROTLI_PARAM_QUALITY]: constants.BROTLI_MAX_QUALITY,
+            [constants.BROTLI_PARAM_SIZE_HINT]: content.length
+        }
+    }));
+}
+
+async function buildAsset(dir, name, loader) {
+    const original = await readFile(join(source, dir, name), 'utf8');
+    const result = await transform(original, { loader, minify: true, charset: 'utf8', target: 'es2020' });
+    const content = Buffer.from(result.code, 'utf8');
+    const hash = createHash('sha256').update(content).digest('hex').slice(0, HASH_LENGTH);
+    const hashedName = `${basename(name, extname(name))}.${hash}${extname(name)}`;
+
+    await mkdir(join(output, 'assets', dir), { recursive: true });
+    await writeCompressed(join(output, 'assets', dir, hashedName), content);
+    console.log(`${dir}/${name}: ${Buffer.byteLength(original)} -> ${content.length} bytes (${hashedName})`);
+    return [`${dir}/${name}`, `assets/${dir}/${hashedName}`];
+}
+
+async function rewritePage(page, manifest) {
+    let html = await readFile(join(source, page), 'utf8');
+    for (const [path, hashed] of Object.entries(manifest)) {
+        html = html.replace(new RegExp(`(src|href)="${path.replace(/[.]/g, '\\.')}"`, 'g'), `$1="${hashed}"`);
+    }
+    await writeFile(join(output, page), html);
+}
+
+const manifest = {};
+for (const [dir, loader] of Object.entries(ASSET_DIRS)) {
+    for (const name of await listAssets(dir, '.' + loader)) {
+        const [path, hashed] = await buildAsset(dir, name, loader);
+        manifest[path] = hashed;
+    }
+}
+for (const page of HTML_PAGES) {
+    await rewritePage(page, manifest);
+}
+await writeFile(join(output, 'assets', 'manifest.json'), JSON.stringify(manifest, null, 2) + '\n');
@@ -12,6 +12,11 @@
  * @author Augment Agent
  * @version 1.0.0
  */
+/**
+ * 任務列表的列式響應格式，日曆視圖請求時優先接受
+ */
+const TASK_COLUMNS_TYPE = 'application/vnd.taskmanager.columns+json';
+
 class TaskAPI {
     /**
      * 建構函數：初始化API設定
@@ -19,11 +24,77 @@ class TaskAPI {
     constructor() {
         // API基礎URL，所有請求都會以此為前綴
         this.baseURL = '/api/tasks';
-        
-        // HTTP請求標頭設定
-        this.headers = {
+    }
+
+    /**
+     * HTTP請求標頭設定
+     * 後端按 X-User-Id 只返回當前登入用戶的任務，每次請求時從 localStorage 讀取
+     */
+    get headers() {
+        const headers = {
             'Content-Type': 'application/json',
         };
+        try {
+            const user = JSON.parse(localStorage.getItem('user') || 'null');
+            if (user && user.id != null) {
+                headers['X-User-Id'] = String(user.id);
+            }
+        } catch (e) {
+            console.error('讀取當前用戶失敗:', e);
+        }
+        return headers;
+    }
+
+    /**
+     * 日曆視圖的請求標頭：優先要求列式格式，伺服器不支援時仍可返回普通JSON
+     */
+    get calendarHeaders() {
+        return {
+            ...this.headers,
+            'Accept': `${TASK_COLUMNS_TYPE}, application/json;q=0.9`
+        };
+    }
+
+    /**
+     * 把列式響應還原為任務物件陣列
+     * 時間欄位為 epoch 秒（牆上時間按 UTC 編碼），還原為 "yyyy-MM-dd HH:mm:ss" 字串；
+     * 字典欄位為下標，布林欄位為 0/1，結果與普通JSON格式的任務物件相同
+     *
+     * @param {Object} payload - 列式響應
+     * @returns {Array} 任務陣列
+     */
+    decodeColumns(payload) {
+        const dict = payload.dict;
+        const time = (seconds) => seconds == null
+            ? null
+            : new Date(seconds * 1000).toISOString().slice(0, 19).replace('T', ' ');
+        const lookup = (values, code) => code == null ? null : values[code];
+        const flag = (value) => value == null ? null : value === 1;
+
+        const tasks = new Array(payload.count);
+        for (let i = 0; i < payload.count; i++) {
+            tasks[i] = {
+                id: payload.id[i],
+                title: payload.title[i],
+                description: payload.description[i],
+                startTime: time(payload.startTime[i]),
+                endTime: time(payload.endTime[i]),
+                priority: lookup(dict.priority, payload.priority[i]),
+                status: lookup(dict.status, payload.status[i]),
+                category: lookup(dict.category, payload.category[i]),
+                color: lookup(dict.color, payload.color[i]),
+                allDay: flag(payload.allDay[i]),
+                repeatType: lookup(dict.repeatType, payload.repeatType[i]),
+                repeatInterval: payload.repeatInterval[i],
+                repeatEndDate: time(payload.repeatEndDate[i]),
+                originalTaskId: payload.originalTaskId[i],
+                repeatMaterialized: flag(payload.repeatMaterialized[i]),
+                version: payload.version[i],
+                createdAt: time(payload.createdAt[i]),
+                updatedAt: time(payload.updatedAt[i])
+            };
+        }
+        return tasks;
     }
 
     /**
@@ -89,6 +160,12 @@ class TaskAPI {
                 case 404:
                     userMessage = '請求的資源不存在';
                     break;
+                case 409:
+                    userMessage = '任務已被其他操作修改，請重新載入後再試';
+                    break;
+                case 428:
+                    userMessage = '缺少任務版本號，請重新載入後再試';
+                    break;
                 case 500:
                     userMessage = '伺服器內部錯誤，請稍後再試';
                     break;
@@ -101,12 +178,43 @@ class TaskAPI {
         
         // 檢查響應內容類型是否為JSON
         const contentType = response.headers.get('content-type');
+        if (contentType && contentType.includes(TASK_COLUMNS_TYPE)) {
+            return this.decodeColumns(await response.json());
+        }
         if (contentType && contentType.includes('application/json')) {
             return await response.json();
         }
         return null;
     }
 
+    /**
+     * 逐頁獲取列表資料
+     * 列表接口每次只返回一頁，下一頁的游標放在 X-Next-Cursor 標頭中，
+     * 這裡按游標依次請求直到沒有下一頁
+     * 
+     * @param {string} url - 列表接口地址（可已帶查詢參數）
+     * @returns {Array} 所有頁合併後的任務陣列
+     */
+    async fetchAllPages(url) {
+        const tasks = [];
+        let cursor = null;
+        do {
+            const pageUrl = cursor
+                ? `${url}${url.includes('?') ? '&' : '?'}cursor=${encodeURIComponent(cursor)}`
+                : url;
+            const response = await fetch(pageUrl, {
+                method: 'GET',
+                headers: this.headers
+            });
+            const page = await this.handleResponse(response);
+            if (page) {
+                tasks.push(...page);
+            }
+            cursor = response.headers.get('X-Next-Cursor');
+        } while (cursor);
+        return tasks;
+    }
+
     /**
      * 獲取所有任務
      * 從後端API獲取完整的任務列表
@@ -118,14 +226,8 @@ class TaskAPI {
             // 顯示載入狀態
             this.showLoading();
             
-            // 發送GET請求獲取所有任務
-            const response = await fetch(this.baseURL, {
-                method: 'GET',
-                headers: this.headers
-            });
-            
-            // 處理響應並返回資料
-            return await this.handleResponse(response);
+            // 逐頁獲取所有任務
+            return await this.fetchAllPages(this.baseURL);
         } catch (error) {
             // 錯誤處理：記錄錯誤並顯示用戶友好訊息
             console.error('獲取任務失敗:', error);
@@ -248,11 +350,7 @@ class TaskAPI {
     // 根据状态获取任务
     async getTasksByStatus(status) {
         try {
-            const response = await fetch(`${this.baseURL}/status/${status}`, {
-                method: 'GET',
-                headers: this.headers
-            });
-            return await this.handleResponse(response);
+            return await this.fetchAllPages(`${this.baseURL}/status/${status}`);
         } catch (error) {
             console.error('获取任务失败:', error);
             return [];
@@ -262,11 +360,7 @@ class TaskAPI {
     // 根据优先级获取任务
     async getTasksByPriority(priority) {
         try {
-            const response = await fetch(`${this.baseURL}/priority/${priority}`, {
-                method: 'GET',
-                headers: this.headers
-            });
-            return await this.handleResponse(response);
+            return await this.fetchAllPages(`${this.baseURL}/priority/${priority}`);
         } catch (error) {
             console.error('获取任务失败:', error);
             return [];
@@ -276,11 +370,7 @@ class TaskAPI {
     // 根据分类获取任务
     async getTasksByCategory(category) {
         try {
-            const response = await fetch(`${this.baseURL}/category/${category}`, {
-                method: 'GET',
-                headers: this.headers
-            });
-            return await this.handleResponse(response);
+            return await this.fetchAllPages(`${this.baseURL}/category/${category}`);
         } catch (error) {
             console.error('获取任务失败:', error);
             return [];
@@ -296,7 +386,7 @@ class TaskAPI {
             });
             const response = await fetch(`${this.baseURL}/date-range?${params}`, {
                 method: 'GET',
-                headers: this.headers
+                headers: this.calendarHeaders
             });
             return await this.handleResponse(response);
         } catch (error) {
@@ -310,7 +400,7 @@ class TaskAPI {
         try {
             const response = await fetch(`${this.baseURL}/today`, {
                 method: 'GET',
-                headers: this.headers
+                headers: this.calendarHeaders
             });
             return await this.handleResponse(response);
         } catch (error) {
@@ -324,7 +414,7 @@ class TaskAPI {
         try {
             const response = await fetch(`${this.baseURL}/this-week`, {
                 method: 'GET',
-                headers: this.headers
+                headers: this.calendarHeaders
             });
             return await this.handleResponse(response);
         } catch (error) {
@@ -338,7 +428,7 @@ class TaskAPI {
         try {
             const response = await fetch(`${this.baseURL}/this-month`, {
                 method: 'GET',
-                headers: this.headers
+                headers: this.calendarHeaders
             });
             return await this.handleResponse(response);
         } catch (error) {
@@ -351,11 +441,7 @@ class TaskAPI {
     async searchTasks(keyword) {
         try {
             const params = new URLSearchParams({ keyword });
-            const response = await fetch(`${this.baseURL}/search?${params}`, {
-                method: 'GET',
-                headers: this.headers
-            });
-            return await this.handleResponse(response);
+            return await this.fetchAllPages(`${this.baseURL}/search?${params}`);
         } catch (error) {
             console.error('搜索任务失败:', error);
             return [];
@@ -390,16 +476,16 @@ class TaskAPI {
         }
     }
 
-    // 标记任务为完成
+    // 标记任务为完成，成功時後端返回 204
     async markTaskAsCompleted(id) {
         try {
             const response = await fetch(`${this.baseURL}/${id}/complete`, {
                 method: 'PATCH',
                 headers: this.headers
             });
-            const result = await this.handleResponse(response);
+            await this.handleResponse(response);
             this.showSuccess('任务已标记为完成！');
-            return result;
+            return true;
         } catch (error) {
             console.error('标记任务完成失败:', error);
             this.showError('标记任务完成失败: ' + error.message);
@@ -407,7 +493,7 @@ class TaskAPI {
         }
     }
 
-    // 更新任务状态
+    // 更新任务状态，成功時後端返回 204
     async updateTaskStatus(id, status) {
         try {
             const response = await fetch(`${this.baseURL}/${id}/status`, {
@@ -415,9 +501,9 @@ class TaskAPI {
                 headers: this.headers,
                 body: JSON.stringify(status)
             });
-            const result = await this.handleResponse(response);
+            await this.handleResponse(response);
             this.showSuccess('任务状态更新成功！');
-            return result;
+            return true;
         } catch (error) {
             console.error('更新任务状态失败:', error);
             this.showError('更新任务状态失败: ' + error.message);
@@ -425,6 +511,116 @@ class TaskAPI {
         }
     }
 
+    /**
+     * 部分更新任務
+     * 只發送需要修改的欄位；帶上 version 時，任務已被他人修改會返回 409
+     * 
+     * @param {number} id - 任務ID
+     * @param {Object} fields - 要修改的欄位
+     * @returns {boolean|null} 成功返回true，失敗返回null
+     */
+    async patchTask(id, fields) {
+        try {
+            const response = await fetch(`${this.baseURL}/${id}`, {
+                method: 'PATCH',
+                headers: this.headers,
+                body: JSON.stringify(fields)
+            });
+            await this.handleResponse(response);
+            return true;
+        } catch (error) {
+            console.error('更新任务失败:', error);
+            this.showError('更新任务失败: ' + error.message);
+            return null;
+        }
+    }
+
+    /**
+     * 批量標記任務為完成
+     * 
+     * @param {Array<number>} ids - 任務ID陣列
+     * @returns {number} 更新的任務數，失敗返回0
+     */
+    async completeTasks(ids) {
+        try {
+            const response = await fetch(`${this.baseURL}/complete`, {
+                method: 'PATCH',
+                headers: this.headers,
+                body: JSON.stringify(ids)
+            });
+            const result = await this.handleResponse(response);
+            this.showSuccess(`已完成 ${result.updated} 個任務！`);
+            return result.updated;
+        } catch (error) {
+            console.error('批量完成任务失败:', error);
+            this.showError('批量完成任务失败: ' + error.message);
+            return 0;
+        }
+    }
+
+    // 增量同步：取令牌 since 之後變更的任務，不帶 since 時只返回當前令牌
+    async getChanges(since) {
+        try {
+            const query = since ? `?${new URLSearchParams({ since })}` : '';
+            const response = await fetch(`${this.baseURL}/changes${query}`, {
+                method: 'GET',
+                headers: this.headers
+            });
+            return await this.handleResponse(response);
+        } catch (error) {
+            console.error('获取任务变更失败:', error);
+            return null;
+        }
+    }
+
+    /**
+     * 批量執行任務操作，一次請求、一個事務完成
+     * 任一操作失敗時整批不生效
+     * 
+     * @param {Array<Object>} operations - 操作陣列，例如
+     *   { op: 'CREATE', task }、{ op: 'UPDATE', id, task }（task 須帶 version）、{ op: 'PATCH', id, patch }、
+     *   { op: 'STATUS', id, status }、{ op: 'DELETE', id }
+     * @returns {Array|null} 各操作的結果，失敗返回null
+     */
+    async batch(operations) {
+        try {
+            const response = await fetch(`${this.baseURL}/batch`, {
+                method: 'POST',
+                headers: this.headers,
+                body: JSON.stringify(operations)
+            });
+            return await this.handleResponse(response);
+        } catch (error) {
+            console.error('批量操作失败:', error);
+            this.showError('批量操作失败: ' + error.message);
+            return null;
+        }
+    }
+
+    /**
+     * 訂閱任務變更推送（Server-Sent Events）
+     * EventSource 無法設定請求標頭，用戶ID以查詢參數傳入；斷線後瀏覽器會自動重連
+     * 
+     * @param {Object|null} range - { startDate, endDate }，只接收與此範圍有關的變更；null 接收全部
+     * @param {Function} onChange - 收到變更時以事件內容調用；需要整體重新載入時以null調用
+     * @returns {EventSource|null} 連接，不支援或未登入時返回null
+     */
+    subscribeChanges(range, onChange) {
+        const userId = this.headers['X-User-Id'];
+        if (!userId || typeof EventSource === 'undefined') {
+            return null;
+        }
+        const params = new URLSearchParams({ userId });
+        if (range) {
+            params.set('startDate', range.startDate);
+            params.set('endDate', range.endDate);
+        }
+        const source = new EventSource(`${this.baseURL}/events?${params}`);
+        source.addEventListener('change', (e) => onChange(JSON.parse(e.data)));
+        source.addEventListener('resync', () => onChange(null));
+        return source;
+    }
+
     /**
      * 顯示成功訊息
      * 用於操作成功後的用戶反饋
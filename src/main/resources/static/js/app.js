@@ -33,6 +33,11 @@ class App {
         // 用戶信息
         this.currentUser = null;
         
+        // 任務變更推送連接及其訂閱範圍
+        this.changeFeed = null;
+        this.changeFeedKey = null;
+        this.refreshTimer = null;
+        
         // 初始化應用程式
         this.init();
     }
@@ -160,7 +165,40 @@ class App {
             
             // 根据视图加载相应数据
             this.loadViewData(viewName);
+            this.connectChangeFeed();
+        }
+    }
+
+    /**
+     * 訂閱任務變更推送，取代輪詢
+     * 日曆視圖只訂閱當前月份的變更，其他視圖訂閱該用戶的所有變更；範圍不變時沿用現有連接
+     */
+    connectChangeFeed() {
+        const range = this.currentView === 'calendar' && this.calendar ? this.calendar.getVisibleRange() : null;
+        const key = range ? `${range.startDate}|${range.endDate}` : 'all';
+        if (this.changeFeed && this.changeFeedKey === key) {
+            return;
         }
+        if (this.changeFeed) {
+            this.changeFeed.close();
+        }
+        this.changeFeedKey = key;
+        this.changeFeed = window.taskAPI.subscribeChanges(range, () => this.scheduleRefresh());
+    }
+
+    /**
+     * 收到變更後重新載入當前視圖
+     * 短時間內的多個變更（例如批量操作）合併為一次載入
+     */
+    scheduleRefresh() {
+        clearTimeout(this.refreshTimer);
+        this.refreshTimer = setTimeout(() => {
+            if (this.currentView === 'calendar') {
+                this.calendar.loadTasks();
+            } else {
+                this.loadViewData(this.currentView);
+            }
+        }, 300);
     }
 
     updateActiveNavItem(activeItem) {
@@ -81,19 +81,30 @@ class Calendar {
     async loadTasks() {
         try {
             // 获取当前月份的任务
-            const startOfMonth = new Date(this.currentDate.getFullYear(), this.currentDate.getMonth(), 1);
-            const endOfMonth = new Date(this.currentDate.getFullYear(), this.currentDate.getMonth() + 1, 0, 23, 59, 59);
-            
-            const startDate = this.formatDateTime(startOfMonth);
-            const endDate = this.formatDateTime(endOfMonth);
+            const { startDate, endDate } = this.getVisibleRange();
             
             this.tasks = await window.taskAPI.getTasksInDateRange(startDate, endDate);
             this.updateCalendarWithTasks();
+            // 月份改變後，變更推送改為訂閱新的範圍
+            window.app?.connectChangeFeed();
         } catch (error) {
             console.error('加载任务失败:', error);
         }
     }
 
+    /**
+     * 當前顯示月份的時間範圍
+     * @returns {Object} { startDate, endDate }，格式為 "yyyy-MM-dd HH:mm:ss"，endDate 包含在內
+     */
+    getVisibleRange() {
+        const startOfMonth = new Date(this.currentDate.getFullYear(), this.currentDate.getMonth(), 1);
+        const endOfMonth = new Date(this.currentDate.getFullYear(), this.currentDate.getMonth() + 1, 0, 23, 59, 59);
+        return {
+            startDate: this.formatDateTime(startOfMonth),
+            endDate: this.formatDateTime(endOfMonth)
+        };
+    }
+
     render() {
         this.updateMonthTitle();
         this.renderCalendarGrid();
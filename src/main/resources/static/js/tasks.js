@@ -155,6 +155,13 @@ class TaskManager {
     }
 
     createTaskCard(task) {
+        // 重複系列的虛擬實例沒有自己的ID；尚不支持只修改單個實例，
+        // 編輯、完成及刪除會作用於整個系列，因此在實例上停用這些操作
+        const taskId = task.id;
+        const isOccurrence = taskId == null;
+        const actionAttrs = (handler, title) => isOccurrence
+            ? `disabled title="重複任務的實例不能單獨${title}，請在原始任務上操作"`
+            : `onclick="taskManager.${handler}(${taskId})" title="${title}"`;
         const card = document.createElement('div');
         card.className = `task-card ${task.status.toLowerCase().replace('_', '-')}`;
         if (this.isOverdue(task)) {
@@ -167,13 +174,13 @@ class TaskManager {
             <div class="task-header">
                 <h3 class="task-title">${this.escapeHtml(task.title)}</h3>
                 <div class="task-actions">
-                    <button class="task-action-btn edit" onclick="taskManager.editTask(${task.id})" title="编辑">
+                    <button class="task-action-btn edit" ${actionAttrs('editTask', '编辑')}>
                         <i class="fas fa-edit"></i>
                     </button>
-                    <button class="task-action-btn complete" onclick="taskManager.toggleTaskComplete(${task.id})" title="${task.status === 'COMPLETED' ? '标记未完成' : '标记完成'}">
+                    <button class="task-action-btn complete" ${actionAttrs('toggleTaskComplete', task.status === 'COMPLETED' ? '标记未完成' : '标记完成')}>
                         <i class="fas ${task.status === 'COMPLETED' ? 'fa-undo' : 'fa-check'}"></i>
                     </button>
-                    <button class="task-action-btn delete" onclick="taskManager.deleteTask(${task.id})" title="删除">
+                    <button class="task-action-btn delete" ${actionAttrs('deleteTask', '删除')}>
                         <i class="fas fa-trash"></i>
                     </button>
                 </div>
@@ -333,6 +340,11 @@ class TaskManager {
             repeatEndDate: null
         };
 
+        // 編輯時帶上打開表單時讀取的版本號：任務期間已被他人修改時服務端返回 409，不會靜默覆蓋
+        if (this.currentEditingTask) {
+            taskData.version = this.currentEditingTask.version;
+        }
+
         // 處理重複結束日期格式轉換
         if (formData.get('repeatEndDate')) {
             try {
@@ -444,7 +456,8 @@ class TaskManager {
     }
 
     async editTask(id) {
-        const task = this.tasks.find(t => t.id === id);
+        // 列表只帶描述預覽，編輯前讀取完整任務
+        const task = await window.taskAPI.getTaskById(id);
         if (task) {
             this.showTaskModal(task);
         }
@@ -703,9 +716,7 @@ class TaskManager {
             
             const response = await fetch(`/api/tasks/${taskId}/repeat?${params}`, {
                 method: 'POST',
-                headers: {
-                    'Content-Type': 'application/json'
-                }
+                headers: window.taskAPI.headers
             });
             
             if (response.ok) {
@@ -0,0 +1,184 @@
+#!/bin/bash
+
+# 樂觀鎖併發壓力測試腳本
+# 多個客戶端同時修改同一任務，驗證沒有寫入被靜默覆蓋（lost update）：
+#   - 帶版本號的覆蓋（PUT + version）：先讀取再寫回，版本不符時應返回 409 及 currentVersion
+#   - 未帶版本號的覆蓋（PUT）：整體覆蓋不可交換，不重試，應全部以 428 拒絕
+#   - 狀態變更（PATCH /status）：單條 UPDATE，可交換，應全部成功
+# 每次成功的寫入都使版本號加一，結束時「最終版本 - 初始版本」必須等於成功寫入數；
+# 少於成功寫入數表示有寫入被覆蓋而未被計入
+#
+# 用法：
+#   ./stress_optimistic_lock.sh [基礎URL] [每類客戶端數] [每個客戶端的寫入次數]
+#
+# 說明：
+#   - 需先啟動應用（mvn spring-boot:run）；腳本自行註冊測試用戶並創建任務
+#   - 結束時同時以併發登入及資料修改驗證用戶的版本號重試，兩者都應成功
+
+BASE_URL=${1:-http://localhost:8080}
+CLIENTS=${2:-8}
+WRITES=${3:-50}
+WORK_DIR=$(mktemp -d /tmp/stress_optimistic_lock.XXXXXX)
+RUN=$(date +%s)
+
+for CMD in curl; do
+    if ! command -v $CMD &> /dev/null; then
+        echo "❌ 錯誤：未找到 $CMD"
+        exit 1
+    fi
+done
+trap 'rm -rf "$WORK_DIR"' EXIT
+
+echo "🏁 開始樂觀鎖併發測試..."
+echo "目標: $BASE_URL，每類客戶端數: $CLIENTS，每個客戶端寫入次數: $WRITES"
+echo "=================================="
+
+RESPONSE=$(curl -s -X POST "$BASE_URL/api/users/register" \
+  -H "Content-Type: application/json" \
+  -d "{\"username\": \"stress_$RUN\", \"email\": \"stress_$RUN@example.com\", \"password\": \"stress123\"}")
+USER_ID=$(echo $RESPONSE | grep -o '"id":[0-9]*' | head -1 | cut -d':' -f2)
+if [ -z "$USER_ID" ]; then
+    echo "❌ 無法創建測試用戶: $RESPONSE"
+    exit 1
+fi
+
+TASK_RESPONSE=$(curl -s -H "X-User-Id: $USER_ID" -X POST "$BASE_URL/api/tasks" \
+  -H "Content-Type: application/json" \
+  -d '{
+    "title": "樂觀鎖壓力測試",
+    "startTime": "2024-01-01 09:00:00",
+    "endTime": "2024-01-01 10:00:00",
+    "priority": "MEDIUM",
+    "category": "stress"
+  }')
+TASK_ID=$(echo $TASK_RESPONSE | grep -o '"id":[0-9]*' | head -1 | cut -d':' -f2)
+if [ -z "$TASK_ID" ]; then
+    echo "❌ 無法創建測試任務: $TASK_RESPONSE"
+    exit 1
+fi
+
+# 讀取任務當前的版本號
+current_version() {
+    curl -s -H "X-User-Id: $USER_ID" "$BASE_URL/api/tasks/$TASK_ID" \
+      | grep -o '"version":[0-9]*' | head -1 | cut -d':' -f2
+}
+
+# 整體覆蓋的請求體；第二個參數為空時不帶版本號
+task_body() {
+    local TITLE=$1
+    local VERSION=$2
+    local BODY="{\"title\": \"$TITLE\", \"startTime\": \"2024-01-01 09:00:00\", \"endTime\": \"2024-01-01 10:00:00\","
+    BODY+="\"priority\": \"MEDIUM\", \"status\": \"PENDING\", \"category\": \"stress\""
+    [ -n "$VERSION" ] && BODY+=", \"version\": $VERSION"
+    echo "$BODY}"
+}
+
+# 帶版本號的客戶端：讀取後寫回，每次請求的狀態碼寫入結果文件
+versioned_client() {
+    local CLIENT=$1
+    for i in $(seq 1 $WRITES); do
+        local VERSION=$(current_version)
+        curl -s -o /dev/null -w "%{http_code}\n" -H "X-User-Id: $USER_ID" -X PUT "$BASE_URL/api/tasks/$TASK_ID" \
+          -H "Content-Type: application/json" -d "$(task_body "versioned-$CLIENT-$i" "$VERSION")"
+    done > "$WORK_DIR/versioned_$CLIENT"
+}
+
+# 未帶版本號的客戶端：應被拒絕，不能覆蓋其他客戶端的寫入
+unversioned_client() {
+    local CLIENT=$1
+    for i in $(seq 1 $WRITES); do
+        curl -s -o /dev/null -w "%{http_code}\n" -H "X-User-Id: $USER_ID" -X PUT "$BASE_URL/api/tasks/$TASK_ID" \
+          -H "Content-Type: application/json" -d "$(task_body "unversioned-$CLIENT-$i")"
+    done > "$WORK_DIR/unversioned_$CLIENT"
+}
+
+# 狀態變更客戶端：在進行中與完成之間切換
+status_client() {
+    local CLIENT=$1
+    for i in $(seq 1 $WRITES); do
+        local STATUS=IN_PROGRESS
+        [ $((i % 2)) -eq 0 ] && STATUS=COMPLETED
+        curl -s -o /dev/null -w "%{http_code}\n" -H "X-User-Id: $USER_ID" -X PATCH "$BASE_URL/api/tasks/$TASK_ID/status" \
+          -H "Content-Type: application/json" -d "\"$STATUS\""
+    done > "$WORK_DIR/status_$CLIENT"
+}
+
+# 統計某類客戶端結果文件中指定狀態碼的數量
+count() {
+    cat "$WORK_DIR"/$1_* | grep -c "^$2$"
+}
+
+INITIAL_VERSION=$(current_version)
+START_TIME=$(date +%s%3N)
+for CLIENT in $(seq 1 $CLIENTS); do
+    versioned_client $CLIENT &
+    unversioned_client $CLIENT &
+    status_client $CLIENT &
+done
+wait
+END_TIME=$(date +%s%3N)
+FINAL_VERSION=$(current_version)
+
+VERSIONED_OK=$(count versioned 200)
+VERSIONED_CONFLICT=$(count versioned 409)
+UNVERSIONED_OK=$(count unversioned 200)
+UNVERSIONED_CONFLICT=$(count unversioned 409)
+UNVERSIONED_REJECTED=$(count unversioned 428)
+STATUS_OK=$(count status 204)
+TOTAL=$(( CLIENTS * WRITES ))
+OTHER=$(( TOTAL * 3 - VERSIONED_OK - VERSIONED_CONFLICT - UNVERSIONED_OK - UNVERSIONED_CONFLICT - UNVERSIONED_REJECTED - STATUS_OK ))
+SUCCEEDED=$(( VERSIONED_OK + UNVERSIONED_OK + STATUS_OK ))
+APPLIED=$(( FINAL_VERSION - INITIAL_VERSION ))
+
+echo ""
+printf "%-20s %8s %8s %8s\n" "客戶端" "成功" "409" "428"
+printf "%-20s %8s %8s %8s\n" "帶版本號覆蓋" "$VERSIONED_OK" "$VERSIONED_CONFLICT" "-"
+printf "%-20s %8s %8s %8s\n" "未帶版本號覆蓋" "$UNVERSIONED_OK" "$UNVERSIONED_CONFLICT" "$UNVERSIONED_REJECTED"
+printf "%-20s %8s %8s %8s\n" "狀態變更" "$STATUS_OK" "-" "-"
+echo ""
+echo "耗時: $(( END_TIME - START_TIME ))ms，其他狀態碼: $OTHER"
+echo "版本號: $INITIAL_VERSION -> $FINAL_VERSION（增加 $APPLIED），成功寫入: $SUCCEEDED"
+
+# 樣本 409 響應：應包含任務ID及當前版本號
+CONFLICT_BODY=$(curl -s -H "X-User-Id: $USER_ID" -X PUT "$BASE_URL/api/tasks/$TASK_ID" \
+  -H "Content-Type: application/json" -d "$(task_body "stale" 0)")
+echo "過期版本的 409 響應: $CONFLICT_BODY"
+
+# 用戶：併發登入與資料修改，登入只寫最後登入時間，衝突時服務端重試
+for i in $(seq 1 $CLIENTS); do
+    curl -s -o /dev/null -w "%{http_code}\n" -X POST "$BASE_URL/api/users/login" \
+      -H "Content-Type: application/json" \
+      -d "{\"usernameOrEmail\": \"stress_$RUN\", \"password\": \"stress123\"}" >> "$WORK_DIR/login_1" &
+    curl -s -o /dev/null -w "%{http_code}\n" -X PUT "$BASE_URL/api/users/$USER_ID" \
+      -H "Content-Type: application/json" -d "{\"displayName\": \"stress-$i\"}" >> "$WORK_DIR/profile_1" &
+done
+wait
+LOGIN_OK=$(count login 200)
+PROFILE_OK=$(count profile 200)
+echo "併發登入成功: $LOGIN_OK/$CLIENTS，資料修改成功: $PROFILE_OK/$CLIENTS"
+
+echo ""
+FAILED=0
+if [ "$APPLIED" -ne "$SUCCEEDED" ]; then
+    echo "❌ 版本號增量與成功寫入數不一致，有寫入被覆蓋"
+    FAILED=1
+fi
+if [ "$STATUS_OK" -ne "$TOTAL" ]; then
+    echo "❌ 狀態變更應全部成功"
+    FAILED=1
+fi
+if [ "$UNVERSIONED_REJECTED" -ne "$TOTAL" ]; then
+    echo "❌ 未帶版本號的整體覆蓋應全部以 428 拒絕"
+    FAILED=1
+fi
+if [ "$OTHER" -ne 0 ]; then
+    echo "❌ 出現 200/204/409/428 以外的狀態碼"
+    FAILED=1
+fi
+if [ "$LOGIN_OK" -ne "$CLIENTS" ] || [ "$PROFILE_OK" -ne "$CLIENTS" ]; then
+    echo "⚠️ 部分用戶寫入在重試後仍然衝突，可調大 app.optimistic-retry.max-attempts"
+fi
+if [ $FAILED -eq 0 ]; then
+    echo "✅ 沒有丟失的更新"
+fi
+exit $FAILED
@@ -0,0 +1,115 @@
+package com.taskmanager.config;
+
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * 本項目時間格式（yyyy-MM-dd HH:mm:ss）的編解碼
+ *
+ * 功能說明：
+ * - 格式固定為19個字元，按位置直接讀寫數字，不經過 DateTimeFormatter 的解析上下文
+ * - 格式化只建立一個字元陣列及結果字串；秒以下的部分捨去，與原有格式一致
+ * - 年份超出 0000-9999 時格式化退回共用的 DateTimeFormatter，解析只接受四位數年份
+ * - epoch 毫秒把 LocalDateTime 的牆上時間當作 UTC，與列式響應格式的時間欄位一致
+ */
+public final class DateTimeCodec {
+
+    public static final String PATTERN = "yyyy-MM-dd HH:mm:ss";
+
+    public static final int LENGTH = PATTERN.length();
+
+    /**
+     * 共用的格式器，用於年份超出四位數時
+     */
+    public static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern(PATTERN);
+
+    private DateTimeCodec() {
+    }
+
+    /**
+     * 格式化為 yyyy-MM-dd HH:mm:ss
+     */
+    public static String format(LocalDateTime value) {
+        int year = value.getYear();
+        if (year < 0 || year > 9999) {
+            return FORMATTER.format(value);
+        }
+        char[] buffer = new char[LENGTH];
+        writeDigits(buffer, 0, year, 4);
+        buffer[4] = '-';
+        writeDigits(buffer, 5, value.getMonthValue(), 2);
+        buffer[7] = '-';
+        writeDigits(buffer, 8, value.getDayOfMonth(), 2);
+        buffer[10] = ' ';
+        writeDigits(buffer, 11, value.getHour(), 2);
+        buffer[13] = ':';
+        writeDigits(buffer, 14, value.getMinute(), 2);
+        buffer[16] = ':';
+        writeDigits(buffer, 17, value.getSecond(), 2);
+        return new String(buffer);
+    }
+
+    /**
+     * 解析 yyyy-MM-dd HH:mm:ss
+     *
+     * @throws DateTimeParseException 格式不符或日期時間無效時
+     */
+    public static LocalDateTime parse(CharSequence text) {
+        if (text.length() != LENGTH) {
+            throw new DateTimeParseException("時間格式應為 " + PATTERN, text, 0);
+        }
+        expect(text, 4, '-');
+        expect(text, 7, '-');
+        expect(text, 10, ' ');
+        expect(text, 13, ':');
+        expect(text, 16, ':');
+        try {
+            return LocalDateTime.of(readDigits(text, 0, 4), readDigits(text, 5, 2), readDigits(text, 8, 2),
+                readDigits(text, 11, 2), readDigits(text, 14, 2), readDigits(text, 17, 2));
+        } catch (DateTimeParseException e) {
+            throw e;
+        } catch (DateTimeException e) {
+            throw new DateTimeParseException(e.getMessage(), text, 0, e);
+        }
+    }
+
+    /**
+     * 牆上時間當作 UTC 的 epoch 毫秒
+     */
+    public static long toEpochMilli(LocalDateTime value) {
+        return value.toEpochSecond(ZoneOffset.UTC) * 1000L + value.getNano() / 1_000_000;
+    }
+
+    public static LocalDateTime fromEpochMilli(long epochMilli) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(epochMilli, 1000L),
+            (int) Math.floorMod(epochMilli, 1000L) * 1_000_000, ZoneOffset.UTC);
+    }
+
+    private static void writeDigits(char[] buffer, int offset, int value, int width) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private static int readDigits(CharSequence text, int offset, int width) {
+        int value = 0;
+        for (int i = offset; i < offset + width; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new DateTimeParseException("時間格式應為 " + PATTERN, text, i);
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static void expect(CharSequence text, int index, char separator) {
+        if (text.charAt(index) != separator) {
+            throw new DateTimeParseException("時間格式應為 " + PATTERN, text, index);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.taskmanager.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdScalarSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+
+/**
+ * LocalDateTime 的 Jackson 模組
+ *
+ * 功能說明：
+ * - 以 DateTimeCodec 讀寫所有 LocalDateTime，取代逐欄位的 @JsonFormat 格式
+ * - app.json.epoch-millis=true 時輸出 epoch 毫秒數字（牆上時間當作 UTC），預設輸出 yyyy-MM-dd HH:mm:ss
+ * - 讀取時兩種形式都接受，空字串視為null
+ * - 作為 Module bean 由 Spring Boot 註冊到共用的 ObjectMapper，並排在 JavaTimeModule 之後，因此優先生效
+ */
+@Component
+public class DateTimeCodecModule extends SimpleModule {
+
+    private static final long serialVersionUID = 1L;
+
+    public DateTimeCodecModule(@Value("${app.json.epoch-millis:false}") boolean epochMillis) {
+        super("DateTimeCodecModule");
+        addSerializer(LocalDateTime.class, new Serializer(epochMillis));
+        addDeserializer(LocalDateTime.class, new Deserializer());
+    }
+
+    private static final class Serializer extends StdScalarSerializer<LocalDateTime> {
+        private static final long serialVersionUID = 1L;
+
+        private final boolean epochMillis;
+
+        Serializer(boolean epochMillis) {
+            super(LocalDateTime.class);
+            this.epochMillis = epochMillis;
+        }
+
+        @Override
+        public void serialize(LocalDateTime value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            if (epochMillis) {
+                gen.writeNumber(DateTimeCodec.toEpochMilli(value));
+            } else {
+                gen.writeString(DateTimeCodec.format(value));
+            }
+        }
+    }
+
+    private static final class Deserializer extends StdScalarDeserializer<LocalDateTime> {
+        private static final long serialVersionUID = 1L;
+
+        Deserializer() {
+            super(LocalDateTime.class);
+        }
+
+        @Override
+        public LocalDateTime deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            if (p.hasToken(JsonToken.VALUE_NUMBER_INT)) {
+                return DateTimeCodec.fromEpochMilli(p.getLongValue());
+            }
+            if (!p.hasToken(JsonToken.VALUE_STRING)) {
+                return (LocalDateTime) ctxt.handleUnexpectedToken(LocalDateTime.class, p);
+            }
+            String text = p.getText().trim();
+            if (text.isEmpty()) {
+                return null;
+            }
+            try {
+                return DateTimeCodec.parse(text);
+            } catch (DateTimeException e) {
+                return (LocalDateTime) ctxt.handleWeirdStringValue(LocalDateTime.class, text, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.taskmanager.config;
+
+import org.springframework.core.convert.converter.Converter;
+
+import java.time.LocalDateTime;
+
+/**
+ * 請求參數的時間轉換：yyyy-MM-dd HH:mm:ss，空字串視為未傳入
+ * 格式不符時拋出的異常由 Spring MVC 轉為 400
+ */
+public class LocalDateTimeParamConverter implements Converter<String, LocalDateTime> {
+
+    @Override
+    public LocalDateTime convert(String source) {
+        String text = source.trim();
+        return text.isEmpty() ? null : DateTimeCodec.parse(text);
+    }
+}
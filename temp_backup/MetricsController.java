@@ -0,0 +1,94 @@
+package com.taskmanager.controller;
+
+import com.taskmanager.cache.TaskCache;
+import com.taskmanager.event.TaskChangeBroadcaster;
+import com.taskmanager.reminder.LoggingReminderSink;
+import com.taskmanager.reminder.Reminder;
+import com.taskmanager.reminder.ReminderScheduler;
+import com.taskmanager.service.LastLoginWriteBehind;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.taskmanager.controller.TaskController.USER_ID_HEADER;
+
+/**
+ * 運行指標接口
+ */
+@RestController
+@RequestMapping("/api/metrics")
+@CrossOrigin(origins = "*")
+public class MetricsController {
+    
+    @Autowired
+    private TaskCache taskCache;
+    
+    @Autowired
+    private TaskChangeBroadcaster taskChangeBroadcaster;
+    
+    @Autowired(required = false)
+    private ReminderScheduler reminderScheduler;
+    
+    @Autowired(required = false)
+    private LoggingReminderSink loggingReminderSink;
+    
+    @Autowired(required = false)
+    private LastLoginWriteBehind lastLoginWriteBehind;
+    
+    /**
+     * 任務快取的命中率、大小及淘汰統計
+     */
+    @GetMapping("/cache")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        return ResponseEntity.ok(taskCache.stats());
+    }
+    
+    /**
+     * 當前打開的任務變更推送連接數，以及因寫出逾時移除的連接
+     */
+    @GetMapping("/events")
+    public ResponseEntity<Map<String, Object>> getEventStats() {
+        return ResponseEntity.ok(taskChangeBroadcaster.stats());
+    }
+    
+    /**
+     * 待觸發及已觸發的提醒數，以及日誌發送目標保留的最近提醒數；只返回計數，不含任務內容
+     */
+    @GetMapping("/reminders")
+    public ResponseEntity<Map<String, Object>> getReminderStats() {
+        if (reminderScheduler == null) {
+            return ResponseEntity.ok(Map.of("enabled", false));
+        }
+        Map<String, Object> stats = new LinkedHashMap<>(reminderScheduler.stats());
+        if (loggingReminderSink != null) {
+            stats.put("recentCount", loggingReminderSink.recentCount());
+        }
+        return ResponseEntity.ok(stats);
+    }
+    
+    /**
+     * 日誌發送目標保留的最近提醒中屬於當前用戶的部分，用於調試
+     */
+    @GetMapping("/reminders/recent")
+    public ResponseEntity<List<Reminder>> getRecentReminders(@RequestHeader(USER_ID_HEADER) Long userId) {
+        if (loggingReminderSink == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(loggingReminderSink.recent(userId));
+    }
+    
+    /**
+     * 最後登入時間延遲寫入的緩衝大小、合併數及寫出延遲
+     */
+    @GetMapping("/last-login")
+    public ResponseEntity<Map<String, Object>> getLastLoginStats() {
+        if (lastLoginWriteBehind == null) {
+            return ResponseEntity.ok(Map.of("enabled", false));
+        }
+        return ResponseEntity.ok(lastLoginWriteBehind.stats());
+    }
+}
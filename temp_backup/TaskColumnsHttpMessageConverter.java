@@ -0,0 +1,254 @@
+package com.taskmanager.config;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taskmanager.model.Task;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 任務列表的列式響應格式
+ *
+ * 功能說明：
+ * - 客戶端在 Accept 中要求 application/vnd.taskmanager.columns+json 時，
+ *   List&lt;Task&gt; 按欄位輸出為一組平行陣列，每個欄位名只出現一次
+ * - 時間欄位輸出為 epoch 秒（把 LocalDateTime 的牆上時間當作 UTC），省去逐行格式化字串
+ * - 分類、顏色及枚舉欄位做字典編碼，列中只保存字典下標，null 保持為 null
+ * - 直接以 JsonGenerator 流式寫出，不構造中間物件
+ *
+ * 格式：{"count": n, "dict": {"category": [...], ...}, "id": [...], "startTime": [...], ...}
+ * 前端 api.js 的 decodeColumns 還原為與 JSON 格式相同的任務物件
+ */
+public class TaskColumnsHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public static final String MEDIA_TYPE_VALUE = "application/vnd.taskmanager.columns+json";
+
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(MEDIA_TYPE_VALUE);
+
+    private final ObjectMapper objectMapper;
+
+    public TaskColumnsHttpMessageConverter(ObjectMapper objectMapper) {
+        super(MEDIA_TYPE);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return List.class.isAssignableFrom(clazz);
+    }
+
+    /**
+     * 只在已協商出列式格式時寫出
+     * 收集可產生的媒體類型時 mediaType 為null，這裡返回 false，
+     * 使 Accept: *&#47;* 仍然選中普通 JSON；列式格式由 Jackson 轉換器的 application/*+json 覆蓋，
+     * 因此明確要求時可以協商成功，並由排在 Jackson 之前的本轉換器寫出
+     */
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return mediaType != null && MEDIA_TYPE.equalsTypeAndSubtype(mediaType)
+            && supports(clazz) && isTaskList(type);
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    /**
+     * canRead 總是返回 false，Spring 不會調用讀取；直接調用時按無法解析的請求體處理
+     */
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("列式格式只用於響應", inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("列式格式只用於響應", inputMessage);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeInternal(Object body, Type type, HttpOutputMessage outputMessage) throws IOException {
+        List<Task> tasks = (List<Task>) body;
+        try (JsonGenerator gen = objectMapper.getFactory()
+                .createGenerator(StreamUtils.nonClosing(outputMessage.getBody()), JsonEncoding.UTF8)) {
+            writeColumns(tasks, gen);
+        }
+    }
+
+    private static boolean isTaskList(Type type) {
+        if (!(type instanceof ParameterizedType parameterized)) {
+            return false;
+        }
+        Type[] arguments = parameterized.getActualTypeArguments();
+        return arguments.length == 1 && arguments[0] == Task.class;
+    }
+
+    private static void writeColumns(List<Task> tasks, JsonGenerator gen) throws IOException {
+        Dictionary category = new Dictionary();
+        Dictionary color = new Dictionary();
+        Dictionary priority = new Dictionary();
+        Dictionary status = new Dictionary();
+        Dictionary repeatType = new Dictionary();
+        int[] categoryCodes = category.encode(tasks, Task::getCategory);
+        int[] colorCodes = color.encode(tasks, Task::getColor);
+        int[] priorityCodes = priority.encode(tasks, t -> nameOf(t.getPriority()));
+        int[] statusCodes = status.encode(tasks, t -> nameOf(t.getStatus()));
+        int[] repeatTypeCodes = repeatType.encode(tasks, t -> nameOf(t.getRepeatType()));
+
+        gen.writeStartObject();
+        gen.writeNumberField("count", tasks.size());
+        gen.writeObjectFieldStart("dict");
+        category.write(gen, "category");
+        color.write(gen, "color");
+        priority.write(gen, "priority");
+        status.write(gen, "status");
+        repeatType.write(gen, "repeatType");
+        gen.writeEndObject();
+
+        writeNumbers(gen, "id", tasks, Task::getId);
+        writeStrings(gen, "title", tasks, Task::getTitle);
+        writeStrings(gen, "description", tasks, Task::getDescription);
+        writeTimes(gen, "startTime", tasks, Task::getStartTime);
+        writeTimes(gen, "endTime", tasks, Task::getEndTime);
+        writeCodes(gen, "priority", priorityCodes);
+        writeCodes(gen, "status", statusCodes);
+        writeCodes(gen, "category", categoryCodes);
+        writeCodes(gen, "color", colorCodes);
+        writeFlags(gen, "allDay", tasks, Task::isAllDay);
+        writeCodes(gen, "repeatType", repeatTypeCodes);
+        writeNumbers(gen, "repeatInterval", tasks, Task::getRepeatInterval);
+        writeTimes(gen, "repeatEndDate", tasks, Task::getRepeatEndDate);
+        writeNumbers(gen, "originalTaskId", tasks, Task::getOriginalTaskId);
+        writeFlags(gen, "repeatMaterialized", tasks, Task::getRepeatMaterialized);
+        writeNumbers(gen, "version", tasks, Task::getVersion);
+        writeTimes(gen, "createdAt", tasks, Task::getCreatedAt);
+        writeTimes(gen, "updatedAt", tasks, Task::getUpdatedAt);
+        gen.writeEndObject();
+    }
+
+    private static String nameOf(Enum<?> value) {
+        return value != null ? value.name() : null;
+    }
+
+    private static void writeStrings(JsonGenerator gen, String name, List<Task> tasks,
+                                     Function<Task, String> getter) throws IOException {
+        gen.writeArrayFieldStart(name);
+        for (Task task : tasks) {
+            gen.writeString(getter.apply(task));
+        }
+        gen.writeEndArray();
+    }
+
+    private static void writeNumbers(JsonGenerator gen, String name, List<Task> tasks,
+                                     Function<Task, Number> getter) throws IOException {
+        gen.writeArrayFieldStart(name);
+        for (Task task : tasks) {
+            Number value = getter.apply(task);
+            if (value == null) {
+                gen.writeNull();
+            } else {
+                gen.writeNumber(value.longValue());
+            }
+        }
+        gen.writeEndArray();
+    }
+
+    private static void writeTimes(JsonGenerator gen, String name, List<Task> tasks,
+                                   Function<Task, LocalDateTime> getter) throws IOException {
+        gen.writeArrayFieldStart(name);
+        for (Task task : tasks) {
+            LocalDateTime value = getter.apply(task);
+            if (value == null) {
+                gen.writeNull();
+            } else {
+                gen.writeNumber(value.toEpochSecond(ZoneOffset.UTC));
+            }
+        }
+        gen.writeEndArray();
+    }
+
+    /**
+     * 布林欄位輸出為 0/1
+     */
+    private static void writeFlags(JsonGenerator gen, String name, List<Task> tasks,
+                                   Function<Task, Boolean> getter) throws IOException {
+        gen.writeArrayFieldStart(name);
+        for (Task task : tasks) {
+            Boolean value = getter.apply(task);
+            if (value == null) {
+                gen.writeNull();
+            } else {
+                gen.writeNumber(value ? 1 : 0);
+            }
+        }
+        gen.writeEndArray();
+    }
+
+    private static void writeCodes(JsonGenerator gen, String name, int[] codes) throws IOException {
+        gen.writeArrayFieldStart(name);
+        for (int code : codes) {
+            if (code < 0) {
+                gen.writeNull();
+            } else {
+                gen.writeNumber(code);
+            }
+        }
+        gen.writeEndArray();
+    }
+
+    /**
+     * 字典：按首次出現的順序為不同的值分配下標，null 編碼為 -1
+     */
+    private static final class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int[] encode(List<Task> tasks, Function<Task, String> getter) {
+            int[] result = new int[tasks.size()];
+            for (int i = 0; i < result.length; i++) {
+                String value = getter.apply(tasks.get(i));
+                result[i] = value == null ? -1 : codes.computeIfAbsent(value, v -> {
+                    values.add(v);
+                    return values.size() - 1;
+                });
+            }
+            return result;
+        }
+
+        void write(JsonGenerator gen, String name) throws IOException {
+            gen.writeArrayFieldStart(name);
+            for (String value : values) {
+                gen.writeString(value);
+            }
+            gen.writeEndArray();
+        }
+    }
+}
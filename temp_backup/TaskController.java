@@ -1,163 +1,398 @@
 package com.taskmanager.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taskmanager.dto.CalendarVersion;
+import com.taskmanager.dto.TaskBatchOperation;
+import com.taskmanager.dto.TaskBatchResult;
+import com.taskmanager.dto.TaskChanges;
+import com.taskmanager.dto.TaskDensity;
+import com.taskmanager.event.TaskChangeBroadcaster;
+import com.taskmanager.dto.TaskPage;
+import com.taskmanager.dto.TaskPatch;
 import com.taskmanager.model.Task;
+import com.taskmanager.service.TaskBatchException;
 import com.taskmanager.service.TaskService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.ZoneId;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/tasks")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = {TaskController.NEXT_CURSOR_HEADER, HttpHeaders.ETAG})
 public class TaskController {
     
+    /**
+     * 列表接口返回下一頁續頁令牌的響應標頭
+     */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    
+    /**
+     * 當前用戶ID的請求標頭，前端登入後在每個請求中帶上
+     * 所有任務接口只讀寫該用戶的任務，缺少此標頭時返回400
+     */
+    public static final String USER_ID_HEADER = "X-User-Id";
+    
+    /**
+     * 流式響應的內容類型：每行一個任務的 JSON
+     */
+    public static final String NDJSON = "application/x-ndjson";
+    
+    /**
+     * 流式響應每寫出多少筆任務刷新一次輸出緩衝
+     */
+    private static final int STREAM_FLUSH_INTERVAL = 100;
+    
     @Autowired
     private TaskService taskService;
     
-    // 获取所有任务
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private TaskChangeBroadcaster taskChangeBroadcaster;
+    
+    // 分頁获取所有任务
     @GetMapping
-    public ResponseEntity<List<Task>> getAllTasks() {
-        List<Task> tasks = taskService.getAllTasks();
-        return ResponseEntity.ok(tasks);
+    public ResponseEntity<List<Task>> getAllTasks(
+            @RequestHeader(USER_ID_HEADER) Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + TaskService.DEFAULT_PAGE_SIZE) int size) {
+        try {
+            return pageResponse(taskService.getAllTasks(userId, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    /**
+     * 以 NDJSON 流式返回用户的所有任务，可按状态、优先级、分类过滤
+     * 任務邊讀邊寫，首個位元組的時間及記憶體佔用與任務總數無關
+     */
+    @GetMapping(value = "/stream", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamTasks(
+            @RequestHeader(USER_ID_HEADER) Long userId,
+            @RequestParam(required = false) Task.Status status,
+            @RequestParam(required = false) Task.Priority priority,
+            @RequestParam(required = false) String category) {
+        StreamingResponseBody body = out -> {
+            int[] written = {0};
+            try {
+                taskService.streamTasks(userId, status, priority, category, task -> {
+                    writeLine(out, task);
+                    if (++written[0] % STREAM_FLUSH_INTERVAL == 1) {
+                        flush(out);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            out.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+    
+    /**
+     * 訂閱任務變更推送（Server-Sent Events）
+     * 瀏覽器的 EventSource 無法設定請求標頭，用戶ID以查詢參數傳入；
+     * 傳入 startDate/endDate 時只推送與該範圍有關的變更，endDate 以秒為精度包含在內
+     */
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> subscribeChanges(
+            @RequestParam Long userId,
+            @RequestParam(required = false) LocalDateTime startDate,
+            @RequestParam(required = false) LocalDateTime endDate) {
+        if ((startDate == null) != (endDate == null)) {
+            return ResponseEntity.badRequest().build();
+        }
+        LocalDateTime until = endDate != null ? endDate.plusSeconds(1) : null;
+        return ResponseEntity.ok(taskChangeBroadcaster.subscribe(userId, startDate, until));
     }
     
     // 根据ID获取任务
     @GetMapping("/{id}")
-    public ResponseEntity<Task> getTaskById(@PathVariable Long id) {
-        Optional<Task> task = taskService.getTaskById(id);
+    public ResponseEntity<Task> getTaskById(@RequestHeader(USER_ID_HEADER) Long userId,
+                                            @PathVariable Long id) {
+        Optional<Task> task = taskService.getTaskById(userId, id);
         return task.map(ResponseEntity::ok)
                   .orElse(ResponseEntity.notFound().build());
     }
     
     // 创建新任务
     @PostMapping
-    public ResponseEntity<Task> createTask(@Valid @RequestBody Task task) {
-        Task createdTask = taskService.createTask(task);
+    public ResponseEntity<Task> createTask(@RequestHeader(USER_ID_HEADER) Long userId,
+                                           @Valid @RequestBody Task task) {
+        Task createdTask = taskService.createTask(userId, task);
         return ResponseEntity.status(HttpStatus.CREATED).body(createdTask);
     }
     
-    // 更新任务
+    // 批量创建任务（匯入等場景），以JDBC批次插入
+    @PostMapping("/bulk")
+    public ResponseEntity<List<Task>> createTasks(@RequestHeader(USER_ID_HEADER) Long userId,
+                                                  @RequestBody List<Task> tasks) {
+        List<Task> createdTasks = taskService.createTasks(userId, tasks);
+        return ResponseEntity.status(HttpStatus.CREATED).body(createdTasks);
+    }
+    
+    /**
+     * 批量执行创建、更新、部分更新、状态变更及删除操作
+     * 所有操作在同一事務內執行，成功時返回各操作的結果；
+     * 任一操作失敗時整批回滾，返回該操作的狀態碼、錯誤訊息及其在請求中的下標
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<?> applyBatch(@RequestHeader(USER_ID_HEADER) Long userId,
+                                        @RequestBody List<TaskBatchOperation> operations) {
+        try {
+            List<TaskBatchResult> results = taskService.applyBatch(userId, operations);
+            return ResponseEntity.ok(results);
+        } catch (TaskBatchException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            error.put("index", e.getIndex());
+            return ResponseEntity.status(e.getStatus()).body(error);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    // 更新任务（整體覆蓋）：必須帶讀取時的 version，缺少時返回 428，與資料庫不一致時返回 409
     @PutMapping("/{id}")
-    public ResponseEntity<Task> updateTask(@PathVariable Long id, @Valid @RequestBody Task taskDetails) {
-        Task updatedTask = taskService.updateTask(id, taskDetails);
+    public ResponseEntity<?> updateTask(@RequestHeader(USER_ID_HEADER) Long userId,
+                                        @PathVariable Long id,
+                                        @Valid @RequestBody Task taskDetails) {
+        if (taskDetails.getVersion() == null) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "整體覆蓋必須帶上讀取任務時的 version，只修改部分欄位請使用 PATCH");
+            error.put("id", id);
+            return ResponseEntity.status(HttpStatus.PRECONDITION_REQUIRED).body(error);
+        }
+        Task updatedTask = taskService.updateTask(userId, id, taskDetails);
         if (updatedTask != null) {
             return ResponseEntity.ok(updatedTask);
         }
         return ResponseEntity.notFound().build();
     }
     
+    // 部分更新任务：只修改請求中出現的欄位，帶 version 時做衝突檢查
+    @PatchMapping("/{id}")
+    public ResponseEntity<Void> patchTask(@RequestHeader(USER_ID_HEADER) Long userId,
+                                          @PathVariable Long id,
+                                          @RequestBody TaskPatch patch) {
+        try {
+            if (taskService.patchTask(userId, id, patch)) {
+                return ResponseEntity.noContent().build();
+            }
+            return ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    // 批量标记任务为完成，返回更新的任务数
+    @PatchMapping("/complete")
+    public ResponseEntity<Map<String, Object>> completeTasks(@RequestHeader(USER_ID_HEADER) Long userId,
+                                                             @RequestBody List<Long> ids) {
+        try {
+            int updated = taskService.completeTasks(userId, ids);
+            Map<String, Object> response = new HashMap<>();
+            response.put("updated", updated);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     // 删除任务
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteTask(@PathVariable Long id) {
-        boolean deleted = taskService.deleteTask(id);
+    public ResponseEntity<Void> deleteTask(@RequestHeader(USER_ID_HEADER) Long userId,
+                                           @PathVariable Long id) {
+        boolean deleted = taskService.deleteTask(userId, id);
         if (deleted) {
             return ResponseEntity.noContent().build();
         }
         return ResponseEntity.notFound().build();
     }
     
-    // 根据状态获取任务
+    // 根据状态分頁获取任务
     @GetMapping("/status/{status}")
-    public ResponseEntity<List<Task>> getTasksByStatus(@PathVariable Task.Status status) {
-        List<Task> tasks = taskService.getTasksByStatus(status);
-        return ResponseEntity.ok(tasks);
+    public ResponseEntity<List<Task>> getTasksByStatus(
+            @RequestHeader(USER_ID_HEADER) Long userId,
+            @PathVariable Task.Status status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + TaskService.DEFAULT_PAGE_SIZE) int size) {
+        try {
+            return pageResponse(taskService.getTasksByStatus(userId, status, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
     
-    // 根据优先级获取任务
+    // 根据优先级分頁获取任务
     @GetMapping("/priority/{priority}")
-    public ResponseEntity<List<Task>> getTasksByPriority(@PathVariable Task.Priority priority) {
-        List<Task> tasks = taskService.getTasksByPriority(priority);
-        return ResponseEntity.ok(tasks);
+    public ResponseEntity<List<Task>> getTasksByPriority(
+            @RequestHeader(USER_ID_HEADER) Long userId,
+            @PathVariable Task.Priority priority,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + TaskService.DEFAULT_PAGE_SIZE) int size) {
+        try {
+            return pageResponse(taskService.getTasksByPriority(userId, priority, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
     
-    // 根据分类获取任务
+    // 根据分类分頁获取任务
     @GetMapping("/category/{category}")
-    public ResponseEntity<List<Task>> getTasksByCategory(@PathVariable String category) {
-        List<Task> tasks = taskService.getTasksByCategory(category);
-        return ResponseEntity.ok(tasks);
+    public ResponseEntity<List<Task>> getTasksByCategory(
+            @RequestHeader(USER_ID_HEADER) Long userId,
+            @PathVariable String category,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + TaskService.DEFAULT_PAGE_SIZE) int size) {
+        try {
+            return pageResponse(taskService.getTasksByCategory(userId, category, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
     
-    // 获取指定日期范围内的任务
+    // 获取指定日期范围内的任务，支持 If-None-Match 條件請求
     @GetMapping("/date-range")
     public ResponseEntity<List<Task>> getTasksInDateRange(
-            @RequestParam String startDate,
-            @RequestParam String endDate) {
+            @RequestHeader(USER_ID_HEADER) Long userId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestParam LocalDateTime startDate,
+            @RequestParam LocalDateTime endDate) {
+        return conditionalResponse(ifNoneMatch, taskService.getDateRangeVersion(userId, startDate, endDate),
+                () -> taskService.getTasksInDateRange(userId, startDate, endDate));
+    }
+    
+    /**
+     * 日曆密度：按天或按小時统计指定日期范围内开始的任务数，按状态及优先级分别计数
+     * 供只需統計結果的概覽客戶端使用，現有月曆需要任務標題及顏色，仍使用日期范围视图；
+     * 與日期范围视图共用 ETag，未變化時返回304
+     */
+    @GetMapping("/density")
+    public ResponseEntity<List<TaskDensity>> getTaskDensity(
+            @RequestHeader(USER_ID_HEADER) Long userId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestParam LocalDateTime startDate,
+            @RequestParam LocalDateTime endDate,
+            @RequestParam(defaultValue = "DAY") TaskDensity.Granularity granularity) {
         try {
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-            LocalDateTime start = LocalDateTime.parse(startDate, formatter);
-            LocalDateTime end = LocalDateTime.parse(endDate, formatter);
-            List<Task> tasks = taskService.getTasksInDateRange(start, end);
-            return ResponseEntity.ok(tasks);
-        } catch (Exception e) {
+            return conditionalResponse(ifNoneMatch, taskService.getDateRangeVersion(userId, startDate, endDate),
+                    () -> taskService.getTaskDensity(userId, startDate, endDate, granularity));
+        } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
         }
     }
     
     // 获取今天的任务
     @GetMapping("/today")
-    public ResponseEntity<List<Task>> getTodayTasks() {
-        List<Task> tasks = taskService.getTodayTasks();
-        return ResponseEntity.ok(tasks);
+    public ResponseEntity<List<Task>> getTodayTasks(
+            @RequestHeader(USER_ID_HEADER) Long userId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return conditionalResponse(ifNoneMatch, taskService.getTodayVersion(userId),
+                () -> taskService.getTodayTasks(userId));
     }
     
     // 获取本周的任务
     @GetMapping("/this-week")
-    public ResponseEntity<List<Task>> getThisWeekTasks() {
-        List<Task> tasks = taskService.getThisWeekTasks();
-        return ResponseEntity.ok(tasks);
+    public ResponseEntity<List<Task>> getThisWeekTasks(
+            @RequestHeader(USER_ID_HEADER) Long userId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return conditionalResponse(ifNoneMatch, taskService.getThisWeekVersion(userId),
+                () -> taskService.getThisWeekTasks(userId));
     }
     
     // 获取本月的任务
     @GetMapping("/this-month")
-    public ResponseEntity<List<Task>> getThisMonthTasks() {
-        List<Task> tasks = taskService.getThisMonthTasks();
-        return ResponseEntity.ok(tasks);
+    public ResponseEntity<List<Task>> getThisMonthTasks(
+            @RequestHeader(USER_ID_HEADER) Long userId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return conditionalResponse(ifNoneMatch, taskService.getThisMonthVersion(userId),
+                () -> taskService.getThisMonthTasks(userId));
     }
     
-    // 搜索任务
+    /**
+     * 增量同步：返回令牌 since 之後新增、修改及刪除的任務
+     * 不帶 since 時只返回當前令牌；reset 為true時客戶端應重新完整載入
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<TaskChanges> getChanges(
+            @RequestHeader(USER_ID_HEADER) Long userId,
+            @RequestParam(required = false) String since) {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(taskService.getChanges(userId, since));
+    }
+    
+    // 分頁搜索任务：標題、描述及分類，中文按二字詞匹配，英文單詞按詞內子字串匹配（不跨越空格或標點）
     @GetMapping("/search")
-    public ResponseEntity<List<Task>> searchTasks(@RequestParam String keyword) {
-        List<Task> tasks = taskService.searchTasks(keyword);
-        return ResponseEntity.ok(tasks);
+    public ResponseEntity<List<Task>> searchTasks(
+            @RequestHeader(USER_ID_HEADER) Long userId,
+            @RequestParam String keyword,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + TaskService.DEFAULT_PAGE_SIZE) int size) {
+        try {
+            return pageResponse(taskService.searchTasks(userId, keyword, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
     
     // 获取即将到期的任务
     @GetMapping("/upcoming")
-    public ResponseEntity<List<Task>> getUpcomingTasks() {
-        List<Task> tasks = taskService.getUpcomingTasks();
+    public ResponseEntity<List<Task>> getUpcomingTasks(@RequestHeader(USER_ID_HEADER) Long userId) {
+        List<Task> tasks = taskService.getUpcomingTasks(userId);
         return ResponseEntity.ok(tasks);
     }
     
     // 获取过期任务
     @GetMapping("/overdue")
-    public ResponseEntity<List<Task>> getOverdueTasks() {
-        List<Task> tasks = taskService.getOverdueTasks();
+    public ResponseEntity<List<Task>> getOverdueTasks(@RequestHeader(USER_ID_HEADER) Long userId) {
+        List<Task> tasks = taskService.getOverdueTasks(userId);
         return ResponseEntity.ok(tasks);
     }
     
     // 标记任务为完成
     @PatchMapping("/{id}/complete")
-    public ResponseEntity<Task> markTaskAsCompleted(@PathVariable Long id) {
-        Task updatedTask = taskService.markTaskAsCompleted(id);
-        if (updatedTask != null) {
-            return ResponseEntity.ok(updatedTask);
+    public ResponseEntity<Void> markTaskAsCompleted(@RequestHeader(USER_ID_HEADER) Long userId,
+                                                    @PathVariable Long id) {
+        if (taskService.markTaskAsCompleted(userId, id)) {
+            return ResponseEntity.noContent().build();
         }
         return ResponseEntity.notFound().build();
     }
     
     // 更新任务状态
     @PatchMapping("/{id}/status")
-    public ResponseEntity<Task> updateTaskStatus(@PathVariable Long id, @RequestBody Task.Status status) {
-        Task updatedTask = taskService.updateTaskStatus(id, status);
-        if (updatedTask != null) {
-            return ResponseEntity.ok(updatedTask);
+    public ResponseEntity<Void> updateTaskStatus(@RequestHeader(USER_ID_HEADER) Long userId,
+                                                 @PathVariable Long id,
+                                                 @RequestBody Task.Status status) {
+        if (status == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (taskService.updateTaskStatus(userId, id, status)) {
+            return ResponseEntity.noContent().build();
         }
         return ResponseEntity.notFound().build();
     }
@@ -165,48 +400,146 @@ public class TaskController {
     // 创建重复任务
     @PostMapping("/{id}/repeat")
     public ResponseEntity<List<Task>> createRepeatingTasks(
+            @RequestHeader(USER_ID_HEADER) Long userId,
             @PathVariable Long id,
             @RequestParam Task.RepeatType repeatType,
             @RequestParam(defaultValue = "1") Integer repeatInterval,
-            @RequestParam(required = false) String repeatEndDate) {
+            @RequestParam(required = false) LocalDateTime repeatEndDate,
+            @RequestParam(defaultValue = "false") boolean materialize) {
         
-        Optional<Task> originalTaskOpt = taskService.getTaskById(id);
+        Optional<Task> originalTaskOpt = taskService.getTaskById(userId, id);
         if (!originalTaskOpt.isPresent()) {
             return ResponseEntity.notFound().build();
         }
         
         Task originalTask = originalTaskOpt.get();
-        LocalDateTime endDate = null;
-        
-        if (repeatEndDate != null && !repeatEndDate.isEmpty()) {
-            try {
-                DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-                endDate = LocalDateTime.parse(repeatEndDate, formatter);
-            } catch (Exception e) {
-                return ResponseEntity.badRequest().build();
-            }
-        }
-        
         List<Task> createdTasks = taskService.createRepeatingTasks(
-            originalTask, repeatType, repeatInterval, endDate);
+            originalTask, repeatType, repeatInterval, repeatEndDate, materialize);
         
         return ResponseEntity.status(HttpStatus.CREATED).body(createdTasks);
     }
     
     // 获取重复任务
     @GetMapping("/{id}/repeating")
-    public ResponseEntity<List<Task>> getRepeatingTasks(@PathVariable Long id) {
-        List<Task> repeatingTasks = taskService.getRepeatingTasks(id);
+    public ResponseEntity<List<Task>> getRepeatingTasks(@RequestHeader(USER_ID_HEADER) Long userId,
+                                                        @PathVariable Long id) {
+        List<Task> repeatingTasks = taskService.getRepeatingTasks(userId, id);
         return ResponseEntity.ok(repeatingTasks);
     }
     
-    // 删除重复任务
+    // 删除重复任务，from 為可選的起始時間（yyyy-MM-dd HH:mm:ss），返回刪除的實例數（含虛擬系列截斷的實例）
     @DeleteMapping("/{id}/repeating")
-    public ResponseEntity<Void> deleteRepeatingTasks(@PathVariable Long id) {
-        boolean deleted = taskService.deleteRepeatingTasks(id);
-        if (deleted) {
-            return ResponseEntity.noContent().build();
+    public ResponseEntity<Map<String, Object>> deleteRepeatingTasks(
+            @RequestHeader(USER_ID_HEADER) Long userId,
+            @PathVariable Long id,
+            @RequestParam(required = false) LocalDateTime from) {
+        int deleted = taskService.deleteRepeatingTasks(userId, id, from);
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("deleted", deleted);
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * 版本衝突：任務在讀取後已被其他請求修改
+     * 響應體帶任務ID及資料庫中的當前版本號，客戶端據此重新載入並合併後再提交；
+     * 任務已被刪除時不含 currentVersion
+     */
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<Map<String, Object>> handleVersionConflict(ObjectOptimisticLockingFailureException e,
+                                                                     HttpServletRequest request) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("error", "任務已被其他操作修改，請重新載入後再試");
+        if (e.getIdentifier() instanceof Long id) {
+            error.put("id", id);
+            String userId = request.getHeader(USER_ID_HEADER);
+            if (userId != null) {
+                try {
+                    taskService.getTaskById(Long.valueOf(userId), id)
+                        .ifPresent(task -> error.put("currentVersion", task.getVersion()));
+                } catch (NumberFormatException ignored) {
+                    // 標頭不合法時只返回任務ID
+                }
+            }
         }
-        return ResponseEntity.notFound().build();
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+    
+    private void writeLine(OutputStream out, Task task) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(task));
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private static void flush(OutputStream out) {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    /**
+     * 日曆視圖的條件響應
+     * 先以聚合查詢得到的版本生成 ETag，與 If-None-Match 相同時直接返回304，不載入任務；
+     * 否則才載入任務。版本在載入前取得，響應內容只會比 ETag 新，不會比它舊
+     *
+     * 響應帶 Cache-Control: no-cache 及 Vary: X-User-Id, Accept，
+     * 瀏覽器每次都會帶上 If-None-Match 重新驗證，且不同用戶、不同響應格式的快取互不混用
+     */
+    private <T> ResponseEntity<T> conditionalResponse(String ifNoneMatch, CalendarVersion version,
+                                                      Supplier<T> loader) {
+        String etag = version.getETag();
+        if (etagMatches(ifNoneMatch, etag)) {
+            return withValidators(ResponseEntity.status(HttpStatus.NOT_MODIFIED), version).build();
+        }
+        return withValidators(ResponseEntity.ok(), version).body(loader.get());
+    }
+    
+    private static ResponseEntity.BodyBuilder withValidators(ResponseEntity.BodyBuilder builder,
+                                                             CalendarVersion version) {
+        builder.eTag(version.getETag())
+            .cacheControl(CacheControl.noCache())
+            .varyBy(USER_ID_HEADER, HttpHeaders.ACCEPT);
+        if (version.getLastModified() != null) {
+            builder.lastModified(version.getLastModified().atZone(ZoneId.systemDefault()));
+        }
+        return builder;
+    }
+    
+    /**
+     * If-None-Match 可以是 *，或以逗號分隔的多個 ETag；按弱比較忽略 W/ 前綴
+     */
+    private static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        String opaque = stripWeak(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.equals("*") || stripWeak(trimmed).equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static String stripWeak(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+    
+    /**
+     * 分頁響應：響應體為本頁任務，續頁令牌放在 X-Next-Cursor 標頭中，
+     * 保持列表接口返回 JSON 陣列的格式不變
+     */
+    private ResponseEntity<List<Task>> pageResponse(TaskPage page) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (page.hasMore()) {
+            builder.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return builder.body(page.getTasks());
     }
 }
\ No newline at end of file
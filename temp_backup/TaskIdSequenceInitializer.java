@@ -0,0 +1,76 @@
+package com.taskmanager.config;
+
+import com.taskmanager.model.Task;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+/**
+ * 任務主鍵序列校正
+ *
+ * 功能說明：
+ * - 舊資料的 tasks.id 由 IDENTITY 產生，ddl-auto=update 在已有資料的資料庫上新建的 tasks_seq 從1開始，
+ *   批量插入會與舊資料主鍵衝突
+ * - 啟動時（Hibernate 建表之後、開始接收請求之前）檢查序列的下一個值，
+ *   不足以讓下一段預分配的ID全部大於 MAX(id) 時，把序列重設到 MAX(id) 之後
+ * - 只讀取序列當前值，不消耗ID；序列已在安全位置時不做任何修改
+ * - 支持 H2 及 PostgreSQL，與 database_migration_v1.3.0.sql 的手動步驟等價
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class TaskIdSequenceInitializer {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskIdSequenceInitializer.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TaskIdSequenceInitializer(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void alignSequence() {
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM tasks", Long.class);
+        if (maxId == null) {
+            return;
+        }
+        boolean postgres = isPostgres();
+        long next = postgres ? nextValuePostgres() : nextValueH2();
+        // pooled 優化器取到序列值 v 後使用 (v - 預分配數, v] 這一段ID
+        long safeNext = maxId + Task.ID_ALLOCATION_SIZE;
+        if (next >= safeNext) {
+            return;
+        }
+        if (postgres) {
+            jdbcTemplate.queryForObject("SELECT setval('" + Task.ID_SEQUENCE + "', ?, false)", Long.class, safeNext);
+        } else {
+            jdbcTemplate.execute("ALTER SEQUENCE " + Task.ID_SEQUENCE + " RESTART WITH " + safeNext);
+        }
+        logger.warn("任務主鍵序列 {} 的下一個值 {} 不大於現有最大ID {}，已重設為 {}",
+            Task.ID_SEQUENCE, next, maxId, safeNext);
+    }
+
+    private boolean isPostgres() {
+        String product = jdbcTemplate.execute(
+            (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        return product != null && product.toLowerCase(Locale.ROOT).contains("postgres");
+    }
+
+    private long nextValuePostgres() {
+        return jdbcTemplate.queryForObject(
+            "SELECT CASE WHEN is_called THEN last_value + " + Task.ID_ALLOCATION_SIZE + " ELSE last_value END FROM "
+                + Task.ID_SEQUENCE, Long.class);
+    }
+
+    private long nextValueH2() {
+        return jdbcTemplate.queryForObject(
+            "SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_SCHEMA = SCHEMA() AND SEQUENCE_NAME = ?",
+            Long.class, Task.ID_SEQUENCE.toUpperCase(Locale.ROOT));
+    }
+}
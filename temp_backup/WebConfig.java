@@ -0,0 +1,54 @@
+package com.taskmanager.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.format.FormatterRegistry;
+import org.springframework.http.CacheControl;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Web MVC 配置
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * 註冊任務列表的列式響應格式
+     * 必須排在 Jackson 轉換器之前，否則 application/*+json 會被 Jackson 以普通 JSON 寫出
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(0, new TaskColumnsHttpMessageConverter(objectMapper));
+    }
+
+    /**
+     * 構建時產生的帶指紋資源（src/main/frontend/build-assets.mjs）
+     * 檔名隨內容變化，可永久快取；按 Accept-Encoding 優先返回預壓縮的 .br/.gz 版本，並附帶 Vary
+     */
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        registry.addResourceHandler("/assets/**")
+            .addResourceLocations("classpath:/static/assets/")
+            .setCacheControl(CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable())
+            .resourceChain(true)
+            .addResolver(new EncodedResourceResolver());
+    }
+
+    /**
+     * 請求參數中的 LocalDateTime 以 DateTimeCodec 解析
+     */
+    @Override
+    public void addFormatters(FormatterRegistry registry) {
+        registry.addConverter(new LocalDateTimeParamConverter());
+    }
+}
@@ -0,0 +1,182 @@
+package com.taskmanager.cache;
+
+import com.taskmanager.event.TaskChangeEvent;
+import com.taskmanager.model.Task;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * 任務讀取快取
+ *
+ * 功能說明：
+ * - 單一任務按ID快取，日曆視圖按 (用戶, 時間窗口 [from, until)) 快取
+ * - 容量及TTL可配置，超出容量時淘汰最久未使用的項目
+ * - 收到 TaskChangeEvent 時只使受影響的項目失效：
+ *   任務本身，以及同一用戶與任務寫入前後時間區間有重疊的窗口
+ */
+@Component
+public class TaskCache {
+
+    private final BoundedTtlCache<Long, Task> tasks;
+    private final BoundedTtlCache<Window, List<Task>> windows;
+
+    public TaskCache(@Value("${app.cache.max-tasks:10000}") int maxTasks,
+                     @Value("${app.cache.max-windows:1000}") int maxWindows,
+                     @Value("${app.cache.ttl-seconds:60}") long ttlSeconds) {
+        this.tasks = new BoundedTtlCache<>(maxTasks, ttlSeconds * 1000);
+        this.windows = new BoundedTtlCache<>(maxWindows, ttlSeconds * 1000);
+    }
+
+    /**
+     * 讀取單一任務，返回快取快照的副本，調用方可以自由修改
+     * 快取不區分用戶，調用方須自行核對任務歸屬
+     */
+    public Task getTask(Long id, Supplier<Task> loader) {
+        Task task = tasks.getOrLoad(id, loader);
+        return task != null ? task.copy() : null;
+    }
+
+    /**
+     * 讀取用戶在時間窗口內的任務列表，返回的列表僅供序列化，不可修改
+     */
+    public List<Task> getWindow(Long userId, LocalDateTime from, LocalDateTime until,
+                                Supplier<List<Task>> loader) {
+        return windows.getOrLoad(new Window(userId, from, until), loader);
+    }
+
+    /**
+     * 事務提交後按變更精確失效
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskChange(TaskChangeEvent event) {
+        switch (event.getType()) {
+            case SAVED:
+                tasks.invalidate(event.getTaskId());
+                invalidateWindows(event.getPrevious());
+                invalidateWindows(event.getTask());
+                break;
+            case PATCHED:
+                patched(event);
+                break;
+            case DELETED:
+                Task previous = event.getPrevious() != null ? event.getPrevious() : tasks.peek(event.getTaskId());
+                tasks.invalidate(event.getTaskId());
+                if (previous != null) {
+                    invalidateWindows(previous);
+                } else {
+                    Long userId = event.getUserId();
+                    windows.invalidateIf((window, list) -> Objects.equals(window.userId, userId));
+                }
+                break;
+            case SERIES_DELETED:
+                Long originalTaskId = event.getTaskId();
+                Long seriesUserId = event.getUserId();
+                LocalDateTime from = event.getFrom();
+                tasks.invalidateIf((id, task) -> originalTaskId.equals(task.getOriginalTaskId())
+                    && (from == null || !task.getStartTime().isBefore(from)));
+                windows.invalidateIf((window, list) -> Objects.equals(window.userId, seriesUserId)
+                    && (from == null || window.until.isAfter(from)));
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * 部分更新：不改時間的補丁只影響包含該任務（或其虛擬實例）的窗口；
+     * 改了時間的補丁按快取中的舊快照推算新舊區間，沒有快照時使該用戶所有窗口失效
+     */
+    private void patched(TaskChangeEvent event) {
+        Long taskId = event.getTaskId();
+        Long userId = event.getUserId();
+        Task cached = tasks.peek(taskId);
+        tasks.invalidate(taskId);
+        if (!event.getPatch().isScheduleChanged()) {
+            windows.invalidateIf((window, list) -> Objects.equals(window.userId, userId) && contains(list, taskId));
+        } else if (cached != null && Objects.equals(cached.getUserId(), userId)) {
+            invalidateWindows(cached);
+            invalidateWindows(event.applyPatch(cached));
+        } else {
+            windows.invalidateIf((window, list) -> Objects.equals(window.userId, userId));
+        }
+    }
+
+    private static boolean contains(List<Task> list, Long taskId) {
+        for (Task task : list) {
+            if (taskId.equals(task.getId()) || taskId.equals(task.getOriginalTaskId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 快取統計，用於監控命中率
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("tasks", tasks.stats());
+        stats.put("windows", windows.stats());
+        return stats;
+    }
+
+    /**
+     * 使同一用戶與任務所佔時間區間有重疊的窗口失效
+     * 虛擬重複系列的實例可能出現在開始時間之後的任何窗口
+     */
+    private void invalidateWindows(Task task) {
+        if (task == null) {
+            return;
+        }
+        LocalDateTime start = task.getStartTime();
+        LocalDateTime end = task.getEndTime() != null && task.getEndTime().isAfter(start) ? task.getEndTime() : start;
+        if (task.getRepeatType() != null && task.getRepeatType() != Task.RepeatType.NONE
+                && task.getOriginalTaskId() == null) {
+            end = LocalDateTime.MAX;
+        }
+        LocalDateTime affectedEnd = end;
+        Long userId = task.getUserId();
+        windows.invalidateIf((window, list) -> Objects.equals(window.userId, userId)
+            && window.until.isAfter(start) && !window.from.isAfter(affectedEnd));
+    }
+
+    /**
+     * 時間窗口快取鍵
+     */
+    private static final class Window {
+        final Long userId;
+        final LocalDateTime from;
+        final LocalDateTime until;
+
+        Window(Long userId, LocalDateTime from, LocalDateTime until) {
+            this.userId = userId;
+            this.from = from;
+            this.until = until;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Window)) {
+                return false;
+            }
+            Window other = (Window) o;
+            return Objects.equals(userId, other.userId) && from.equals(other.from) && until.equals(other.until);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, from, until);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.taskmanager.dto;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * 日曆視圖版本
+ * 由時間窗口內任務的筆數及最大 updatedAt 組成，只需一條聚合查詢，不載入任務實體。
+ * 窗口內任何任務新增、修改或刪除都會改變筆數或最大修改時間，據此生成 ETag
+ */
+public class CalendarVersion {
+
+    private final long count;
+    private final LocalDateTime lastModified;
+    private final Long userId;
+    private final LocalDateTime from;
+    private final LocalDateTime until;
+
+    /**
+     * 供 JPQL 構造表達式使用
+     */
+    public CalendarVersion(Long count, LocalDateTime lastModified) {
+        this(count != null ? count : 0L, lastModified, null, null, null);
+    }
+
+    private CalendarVersion(long count, LocalDateTime lastModified, Long userId,
+                            LocalDateTime from, LocalDateTime until) {
+        this.count = count;
+        this.lastModified = lastModified;
+        this.userId = userId;
+        this.from = from;
+        this.until = until;
+    }
+
+    /**
+     * 綁定用戶及時間窗口，窗口不同（例如日期變了）時 ETag 也不同
+     */
+    public CalendarVersion scopedTo(Long userId, LocalDateTime from, LocalDateTime until) {
+        return new CalendarVersion(count, lastModified, userId, from, until);
+    }
+
+    /**
+     * 弱 ETag：相同版本的響應在語義上相同
+     */
+    public String getETag() {
+        int hash = Objects.hash(userId, from, until, count, lastModified);
+        return "W/\"" + count + "-" + Integer.toHexString(hash) + "\"";
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * 窗口內任務的最後修改時間，窗口內沒有任務時為null
+     */
+    public LocalDateTime getLastModified() {
+        return lastModified;
+    }
+}
@@ -0,0 +1,60 @@
+package com.taskmanager.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 搜索結果分頁游標
+ * 搜索結果按相關度排序，沒有穩定的鍵集位置，以排名偏移量作為續頁令牌
+ * 令牌帶有前綴，可以與 TaskCursor 的令牌區分
+ */
+public final class SearchCursor {
+
+    private static final String PREFIX = "rank:";
+
+    private SearchCursor() {
+    }
+
+    /**
+     * 是否為搜索索引生成的令牌，空值視為第一頁
+     */
+    public static boolean isRankToken(String token) {
+        if (token == null || token.isEmpty()) {
+            return true;
+        }
+        try {
+            return new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).startsWith(PREFIX);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 解析續頁令牌為偏移量，空值表示從第一筆開始
+     *
+     * @throws IllegalArgumentException 令牌格式不正確時
+     */
+    public static int decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return 0;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            if (!raw.startsWith(PREFIX)) {
+                throw new IllegalArgumentException("缺少前綴");
+            }
+            int offset = Integer.parseInt(raw.substring(PREFIX.length()));
+            if (offset < 0) {
+                throw new IllegalArgumentException("偏移量不可為負數");
+            }
+            return offset;
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("無效的搜索游標: " + token, e);
+        }
+    }
+
+    public static String encode(int offset) {
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString((PREFIX + offset).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,108 @@
+package com.taskmanager.dto;
+
+import com.taskmanager.model.Task;
+
+/**
+ * 批量操作中的單個操作
+ * CREATE 使用 task；UPDATE 使用 id 及 task（整體覆蓋，task 必須帶 version）；PATCH 使用 id 及 patch；
+ * STATUS 使用 id 及 status；DELETE 只使用 id
+ */
+public class TaskBatchOperation {
+
+    public enum Type {
+        CREATE, UPDATE, PATCH, STATUS, DELETE
+    }
+
+    private Type op;
+    private Long id;
+    private Task task;
+    private TaskPatch patch;
+    private Task.Status status;
+
+    public TaskBatchOperation() {
+    }
+
+    /**
+     * 檢查操作所需的欄位齊全，在執行任何操作之前調用
+     *
+     * @throws IllegalArgumentException 缺少操作類型、ID或操作內容，或任務內容不合法時
+     */
+    public void validate() {
+        if (op == null) {
+            throw new IllegalArgumentException("缺少操作類型");
+        }
+        if (op != Type.CREATE && id == null) {
+            throw new IllegalArgumentException(op + " 操作缺少任務ID");
+        }
+        switch (op) {
+            case CREATE:
+            case UPDATE:
+                if (task == null) {
+                    throw new IllegalArgumentException(op + " 操作缺少任務內容");
+                }
+                if (task.getTitle() == null || task.getTitle().trim().isEmpty()) {
+                    throw new IllegalArgumentException("任務標題不能為空");
+                }
+                if (task.getStartTime() == null) {
+                    throw new IllegalArgumentException("開始時間不能為空");
+                }
+                if (op == Type.UPDATE && task.getVersion() == null) {
+                    throw new IllegalArgumentException("UPDATE 操作缺少任務版本號");
+                }
+                break;
+            case PATCH:
+                if (patch == null) {
+                    throw new IllegalArgumentException("PATCH 操作缺少補丁");
+                }
+                patch.validate();
+                break;
+            case STATUS:
+                if (status == null) {
+                    throw new IllegalArgumentException("STATUS 操作缺少狀態");
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    public Type getOp() {
+        return op;
+    }
+
+    public void setOp(Type op) {
+        this.op = op;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Task getTask() {
+        return task;
+    }
+
+    public void setTask(Task task) {
+        this.task = task;
+    }
+
+    public TaskPatch getPatch() {
+        return patch;
+    }
+
+    public void setPatch(TaskPatch patch) {
+        this.patch = patch;
+    }
+
+    public Task.Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Task.Status status) {
+        this.status = status;
+    }
+}
@@ -0,0 +1,67 @@
+package com.taskmanager.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.taskmanager.model.Task;
+
+/**
+ * 批量操作中單個操作的結果
+ * status 與對應單個接口的響應狀態碼相同：創建 201、整體更新 200、其他成功操作 204
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TaskBatchResult {
+
+    private final int index;
+    private final TaskBatchOperation.Type op;
+    private final Long id;
+    private final int status;
+    private final Task task;
+
+    private TaskBatchResult(int index, TaskBatchOperation.Type op, Long id, int status, Task task) {
+        this.index = index;
+        this.op = op;
+        this.id = id;
+        this.status = status;
+        this.task = task;
+    }
+
+    public static TaskBatchResult created(int index, Task task) {
+        return new TaskBatchResult(index, TaskBatchOperation.Type.CREATE, task.getId(), 201, task);
+    }
+
+    public static TaskBatchResult updated(int index, Task task) {
+        return new TaskBatchResult(index, TaskBatchOperation.Type.UPDATE, task.getId(), 200, task);
+    }
+
+    /**
+     * 沒有響應內容的成功操作（PATCH、STATUS、DELETE）
+     */
+    public static TaskBatchResult noContent(int index, TaskBatchOperation.Type op, Long id) {
+        return new TaskBatchResult(index, op, id, 204, null);
+    }
+
+    /**
+     * 操作在請求中的下標
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    public TaskBatchOperation.Type getOp() {
+        return op;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * 創建或整體更新後的任務，其他操作為null
+     */
+    public Task getTask() {
+        return task;
+    }
+}
@@ -0,0 +1,83 @@
+package com.taskmanager.dto;
+
+import com.taskmanager.model.Task;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 增量同步結果
+ * token 為本次讀取時用戶的變更序號，客戶端下次以 since=token 只取之後的變更；
+ * reset 為true時變更過多（或令牌無效），客戶端應丟棄本地副本後重新完整載入
+ *
+ * tasks 為新增或修改過的任務（列表投影，描述只含預覽），虛擬重複系列只返回規則本身；
+ * deleted 為已刪除的任務ID；seriesDeleted 為系列批量刪除，客戶端移除該系列中
+ * 起始時間不早於 from（null表示全部）的已物化實例
+ */
+public class TaskChanges {
+
+    private final String token;
+    private final boolean reset;
+    private final List<Task> tasks;
+    private final List<Long> deleted;
+    private final List<SeriesDeletion> seriesDeleted;
+
+    public TaskChanges(String token, boolean reset, List<Task> tasks, List<Long> deleted,
+                       List<SeriesDeletion> seriesDeleted) {
+        this.token = token;
+        this.reset = reset;
+        this.tasks = tasks;
+        this.deleted = deleted;
+        this.seriesDeleted = seriesDeleted;
+    }
+
+    /**
+     * 只返回令牌，不含任何變更；用於首次同步或要求客戶端重新載入
+     */
+    public static TaskChanges tokenOnly(long token, boolean reset) {
+        return new TaskChanges(Long.toString(token), reset, new ArrayList<>(), new ArrayList<>(),
+            new ArrayList<>());
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public boolean isReset() {
+        return reset;
+    }
+
+    public List<Task> getTasks() {
+        return tasks;
+    }
+
+    public List<Long> getDeleted() {
+        return deleted;
+    }
+
+    public List<SeriesDeletion> getSeriesDeleted() {
+        return seriesDeleted;
+    }
+
+    /**
+     * 一次系列批量刪除
+     */
+    public static class SeriesDeletion {
+        private final Long originalTaskId;
+        private final LocalDateTime from;
+
+        public SeriesDeletion(Long originalTaskId, LocalDateTime from) {
+            this.originalTaskId = originalTaskId;
+            this.from = from;
+        }
+
+        public Long getOriginalTaskId() {
+            return originalTaskId;
+        }
+
+        public LocalDateTime getFrom() {
+            return from;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.taskmanager.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * 任務列表分頁游標
+ * 以 (startTime, id) 作為鍵集位置，編碼為不透明的續頁令牌
+ */
+public class TaskCursor {
+
+    /**
+     * 第一頁的起始位置，早於任何有效的任務開始時間
+     */
+    public static final TaskCursor FIRST = new TaskCursor(LocalDateTime.of(1, 1, 1, 0, 0), 0L);
+
+    private static final String SEPARATOR = "|";
+
+    private final LocalDateTime startTime;
+    private final Long id;
+
+    public TaskCursor(LocalDateTime startTime, Long id) {
+        this.startTime = startTime;
+        this.id = id;
+    }
+
+    /**
+     * 解析續頁令牌，空值表示從第一頁開始
+     *
+     * @throws IllegalArgumentException 令牌格式不正確時
+     */
+    public static TaskCursor decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return FIRST;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            return new TaskCursor(
+                LocalDateTime.parse(raw.substring(0, separator)),
+                Long.parseLong(raw.substring(separator + 1))
+            );
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("無效的分頁游標: " + token, e);
+        }
+    }
+
+    /**
+     * 編碼為續頁令牌
+     */
+    public String encode() {
+        String raw = startTime + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
@@ -0,0 +1,76 @@
+package com.taskmanager.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.taskmanager.model.Task;
+
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 日曆密度：某天（或某小時）開始的任務數，按狀態及優先級分別統計
+ * 供月曆及年曆概覽顯示每日任務數，不需下載任務本身
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TaskDensity {
+
+    /**
+     * 聚合粒度
+     */
+    public enum Granularity {
+        DAY, HOUR
+    }
+
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    private final LocalDate date;
+
+    private final Integer hour;
+
+    private long total;
+
+    private final Map<Task.Status, Long> byStatus = new EnumMap<>(Task.Status.class);
+
+    private final Map<Task.Priority, Long> byPriority = new EnumMap<>(Task.Priority.class);
+
+    /**
+     * @param hour 小時（0-23），按天聚合時為null
+     */
+    public TaskDensity(LocalDate date, Integer hour) {
+        this.date = date;
+        this.hour = hour;
+    }
+
+    /**
+     * 累加一組任務數
+     */
+    public void add(Task.Status status, Task.Priority priority, long count) {
+        total += count;
+        if (status != null) {
+            byStatus.merge(status, count, Long::sum);
+        }
+        if (priority != null) {
+            byPriority.merge(priority, count, Long::sum);
+        }
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public Integer getHour() {
+        return hour;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public Map<Task.Status, Long> getByStatus() {
+        return byStatus;
+    }
+
+    public Map<Task.Priority, Long> getByPriority() {
+        return byPriority;
+    }
+}
@@ -0,0 +1,56 @@
+package com.taskmanager.dto;
+
+import com.taskmanager.model.Task;
+
+import java.time.LocalDate;
+
+/**
+ * 任務密度聚合查詢的一行：某天（或某小時）某狀態、某優先級的任務數
+ * 由 JPQL 構造表達式建立，不載入任務實體
+ */
+public class TaskDensityRow {
+
+    private final LocalDate date;
+    private final Integer hour;
+    private final Task.Status status;
+    private final Task.Priority priority;
+    private final long count;
+
+    /**
+     * 按天聚合
+     */
+    public TaskDensityRow(LocalDate date, Task.Status status, Task.Priority priority, Long count) {
+        this(date, null, status, priority, count);
+    }
+
+    /**
+     * 按小時聚合
+     */
+    public TaskDensityRow(LocalDate date, Integer hour, Task.Status status, Task.Priority priority, Long count) {
+        this.date = date;
+        this.hour = hour;
+        this.status = status;
+        this.priority = priority;
+        this.count = count != null ? count : 0L;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public Integer getHour() {
+        return hour;
+    }
+
+    public Task.Status getStatus() {
+        return status;
+    }
+
+    public Task.Priority getPriority() {
+        return priority;
+    }
+
+    public long getCount() {
+        return count;
+    }
+}
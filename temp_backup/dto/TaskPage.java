@@ -0,0 +1,55 @@
+package com.taskmanager.dto;
+
+import com.taskmanager.model.Task;
+
+import java.util.List;
+
+/**
+ * 任務分頁結果
+ * 包含本頁任務及下一頁的續頁令牌（沒有下一頁時為null）
+ */
+public class TaskPage {
+
+    private final List<Task> tasks;
+    private final String nextCursor;
+
+    public TaskPage(List<Task> tasks, String nextCursor) {
+        this.tasks = tasks;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * 由多取一筆的查詢結果建立分頁
+     * 若結果超過頁大小，截去多餘的一筆並以本頁最後一筆生成續頁令牌
+     */
+    public static TaskPage of(List<Task> rows, int size) {
+        if (rows.size() <= size) {
+            return new TaskPage(rows, null);
+        }
+        List<Task> tasks = rows.subList(0, size);
+        Task last = tasks.get(size - 1);
+        return new TaskPage(tasks, new TaskCursor(last.getStartTime(), last.getId()).encode());
+    }
+
+    /**
+     * 由多取一筆的搜索結果建立分頁，續頁令牌為下一頁的排名偏移量
+     */
+    public static TaskPage ofRanked(List<Task> rows, int offset, int size) {
+        if (rows.size() <= size) {
+            return new TaskPage(rows, null);
+        }
+        return new TaskPage(rows.subList(0, size), SearchCursor.encode(offset + size));
+    }
+
+    public List<Task> getTasks() {
+        return tasks;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,146 @@
+package com.taskmanager.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.taskmanager.model.Task;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 任務部分更新DTO
+ * 用於接收 PATCH 請求，只記錄請求中出現的欄位；
+ * 明確傳入null表示清空該欄位，未出現的欄位保持不變
+ *
+ * version 為客戶端讀到的版本號，傳入時只有版本一致才會寫入
+ */
+public class TaskPatch {
+
+    /**
+     * 出現的欄位，鍵為實體屬性名
+     */
+    private final Map<String, Object> changes = new LinkedHashMap<>();
+
+    private Long version;
+
+    public TaskPatch() {
+    }
+
+    /**
+     * 只修改狀態的補丁
+     */
+    public static TaskPatch status(Task.Status status) {
+        TaskPatch patch = new TaskPatch();
+        patch.setStatus(status);
+        return patch;
+    }
+
+    /**
+     * 檢查必填欄位沒有被清空
+     *
+     * @throws IllegalArgumentException 標題為空、開始時間/優先級/狀態為null時
+     */
+    public void validate() {
+        if (changes.containsKey("title")) {
+            Object title = changes.get("title");
+            if (title == null || title.toString().trim().isEmpty()) {
+                throw new IllegalArgumentException("任務標題不能為空");
+            }
+        }
+        for (String required : new String[] {"startTime", "priority", "status", "isAllDay"}) {
+            if (changes.containsKey(required) && changes.get(required) == null) {
+                throw new IllegalArgumentException(required + " 不能為空");
+            }
+        }
+    }
+
+    /**
+     * 把補丁套用到任務快照上，並與資料庫一致地遞增版本號、更新修改時間
+     * 供記憶體索引同步已寫入的補丁
+     */
+    public void applyTo(Task task, LocalDateTime updatedAt) {
+        changes.forEach((field, value) -> {
+            switch (field) {
+                case "title": task.setTitle((String) value); break;
+                case "description": task.setDescription((String) value); break;
+                case "startTime": task.setStartTime((LocalDateTime) value); break;
+                case "endTime": task.setEndTime((LocalDateTime) value); break;
+                case "priority": task.setPriority((Task.Priority) value); break;
+                case "status": task.setStatus((Task.Status) value); break;
+                case "category": task.setCategory((String) value); break;
+                case "color": task.setColor((String) value); break;
+                case "isAllDay": task.setAllDay((Boolean) value); break;
+                default: break;
+            }
+        });
+        task.setVersion(task.getVersion() != null ? task.getVersion() + 1 : 1L);
+        task.setUpdatedAt(updatedAt);
+    }
+
+    @JsonIgnore
+    public boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    /**
+     * 是否修改了開始或結束時間，影響任務所在的日曆窗口
+     */
+    @JsonIgnore
+    public boolean isScheduleChanged() {
+        return changes.containsKey("startTime") || changes.containsKey("endTime");
+    }
+
+    /**
+     * 出現的欄位及新值，鍵為實體屬性名
+     */
+    @JsonIgnore
+    public Map<String, Object> getChanges() {
+        return Collections.unmodifiableMap(changes);
+    }
+
+    // Setters：由 Jackson 在欄位出現時調用
+    public void setTitle(String title) {
+        changes.put("title", title);
+    }
+
+    public void setDescription(String description) {
+        changes.put("description", description);
+    }
+
+    public void setStartTime(LocalDateTime startTime) {
+        changes.put("startTime", startTime);
+    }
+
+    public void setEndTime(LocalDateTime endTime) {
+        changes.put("endTime", endTime);
+    }
+
+    public void setPriority(Task.Priority priority) {
+        changes.put("priority", priority);
+    }
+
+    public void setStatus(Task.Status status) {
+        changes.put("status", status);
+    }
+
+    public void setCategory(String category) {
+        changes.put("category", category);
+    }
+
+    public void setColor(String color) {
+        changes.put("color", color);
+    }
+
+    public void setAllDay(Boolean allDay) {
+        changes.put("isAllDay", allDay);
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
@@ -0,0 +1,477 @@
+package com.taskmanager.event;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taskmanager.model.Task;
+import com.taskmanager.service.RecurrenceExpander;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 任務變更推送（Server-Sent Events）
+ *
+ * 功能說明：
+ * - 事務提交後把 TaskChangeEvent 推送給該用戶已打開的連接，前端據此重新載入當前視圖
+ * - 連接可指定可見時間窗口，保存事件只推送給窗口與任務新舊時間有重疊的連接；
+ *   部分更新及刪除事件不帶完整快照，一律推送
+ * - 連接以 SseEmitter 非同步保持，空閒時不佔用請求線程
+ * - 每個連接有固定容量的發送隊列，由共用的少量線程逐個連接排空；
+ *   客戶端過慢導致隊列溢出時丟棄積壓的事件，改發一個 resync 事件要求重新載入
+ * - 寫出是阻塞的：客戶端停止讀取、TCP 緩衝填滿後，排空線程停在 send 上，
+ *   直到容器的寫出逾時（Tomcat 預設60秒）才拋出異常
+ * - 單次寫出超過 write-timeout-millis 時連接被判定為停滯：立即移除，不再接收事件，
+ *   並為卡住的排空線程補充一個線程，其他連接的推送不受影響；
+ *   卡住的線程在寫出返回（容器逾時或客戶端恢復）後結束連接並歸還補充的線程
+ * - 啟用虛擬線程（spring.threads.virtual.enabled，需 Java 21）時每次排空使用一個虛擬線程，
+ *   慢客戶端的阻塞寫出不再佔用共用線程，dispatch-threads 不再生效，寫出逾時仍然移除停滯的連接
+ */
+@Component
+public class TaskChangeBroadcaster {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskChangeBroadcaster.class);
+
+    /**
+     * 連接的最長保持時間，到期後由瀏覽器的 EventSource 自動重連
+     */
+    public static final long TIMEOUT_MILLIS = 30 * 60 * 1000L;
+
+    /**
+     * 每個連接待發送事件的上限
+     */
+    static final int BUFFER_SIZE = 256;
+
+    /**
+     * 每個用戶同時保持的連接上限，超出時關閉最早的連接
+     */
+    static final int MAX_CONNECTIONS_PER_USER = 10;
+
+    /**
+     * 心跳間隔，保持代理不斷開連接，並及早發現已關閉的連接
+     */
+    private static final long HEARTBEAT_SECONDS = 25;
+
+    /**
+     * 檢查寫出逾時的間隔
+     */
+    private static final long WRITE_CHECK_MILLIS = 1000;
+
+    private final Map<Long, List<Subscription>> subscriptions = new ConcurrentHashMap<>();
+    /**
+     * 正在寫出的連接，包括寫出期間已被關閉的連接
+     */
+    private final Set<Subscription> writing = ConcurrentHashMap.newKeySet();
+    private final ObjectMapper objectMapper;
+    private final Executor dispatcher;
+    private final ThreadPoolExecutor platformDispatcher;
+    private final ScheduledExecutorService heartbeat;
+    private final long writeTimeoutNanos;
+    private final AtomicLong writeTimeouts = new AtomicLong();
+    private final AtomicInteger stalledWriters = new AtomicInteger();
+
+    public TaskChangeBroadcaster(ObjectMapper objectMapper, Environment environment,
+                                 @Value("${app.events.dispatch-threads:2}") int dispatchThreads,
+                                 @Value("${app.events.write-timeout-millis:5000}") long writeTimeoutMillis) {
+        this.objectMapper = objectMapper;
+        if (Threading.VIRTUAL.isActive(environment)) {
+            this.platformDispatcher = null;
+            this.dispatcher = new VirtualThreadTaskExecutor("task-events-");
+        } else {
+            int threads = Math.max(1, dispatchThreads);
+            this.platformDispatcher = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), daemon("task-events-"));
+            this.dispatcher = platformDispatcher;
+        }
+        this.writeTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, writeTimeoutMillis));
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(daemon("task-events-heartbeat"));
+        this.heartbeat.scheduleAtFixedRate(this::sendHeartbeats, HEARTBEAT_SECONDS, HEARTBEAT_SECONDS,
+            TimeUnit.SECONDS);
+        this.heartbeat.scheduleWithFixedDelay(this::checkWriteTimeouts, WRITE_CHECK_MILLIS, WRITE_CHECK_MILLIS,
+            TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 打開一個推送連接
+     *
+     * @param from 可見窗口開始時間，與 until 同時為null表示接收該用戶的所有變更
+     * @param until 可見窗口結束時間（不含）
+     */
+    public SseEmitter subscribe(Long userId, LocalDateTime from, LocalDateTime until) {
+        SseEmitter emitter = new SseEmitter(TIMEOUT_MILLIS);
+        Subscription subscription = new Subscription(userId, from, until, emitter);
+        List<Subscription> userSubscriptions = subscriptions.compute(userId, (id, list) -> {
+            List<Subscription> result = list != null ? list : new CopyOnWriteArrayList<>();
+            result.add(subscription);
+            return result;
+        });
+        while (userSubscriptions.size() > MAX_CONNECTIONS_PER_USER) {
+            userSubscriptions.get(0).close();
+        }
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(error -> subscription.close());
+        return emitter;
+    }
+
+    /**
+     * 事務提交後推送，事件只序列化一次
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskChange(TaskChangeEvent event) {
+        List<Subscription> userSubscriptions = subscriptions.get(event.getUserId());
+        if (userSubscriptions == null || userSubscriptions.isEmpty()) {
+            return;
+        }
+        String data;
+        try {
+            data = objectMapper.writeValueAsString(payload(event));
+        } catch (JsonProcessingException e) {
+            logger.warn("任務變更事件序列化失敗: {}", event.getTaskId(), e);
+            return;
+        }
+        for (Subscription subscription : userSubscriptions) {
+            if (event.getType() != TaskChangeEvent.Type.SAVED
+                    || subscription.covers(event.getTask()) || subscription.covers(event.getPrevious())) {
+                subscription.offer(new Message("change", data));
+            }
+        }
+    }
+
+    /**
+     * 當前打開的連接數，用於監控
+     */
+    public int connectionCount() {
+        int count = 0;
+        for (List<Subscription> userSubscriptions : subscriptions.values()) {
+            count += userSubscriptions.size();
+        }
+        return count;
+    }
+
+    /**
+     * 連接數、因寫出逾時移除的連接數及仍卡在寫出上的排空線程數
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("connections", connectionCount());
+        stats.put("writeTimeouts", writeTimeouts.get());
+        stats.put("stalledWriters", stalledWriters.get());
+        stats.put("writeTimeoutMillis", TimeUnit.NANOSECONDS.toMillis(writeTimeoutNanos));
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeat.shutdownNow();
+        if (dispatcher instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+        for (List<Subscription> userSubscriptions : subscriptions.values()) {
+            for (Subscription subscription : userSubscriptions) {
+                subscription.close();
+            }
+        }
+    }
+
+    private void sendHeartbeats() {
+        for (List<Subscription> userSubscriptions : subscriptions.values()) {
+            for (Subscription subscription : userSubscriptions) {
+                subscription.offer(Message.HEARTBEAT);
+            }
+        }
+    }
+
+    /**
+     * 移除單次寫出超過逾時的連接
+     * 不能在此結束 SseEmitter：send 與 complete 在同一把鎖上，會被卡住的寫出一同阻塞
+     */
+    private void checkWriteTimeouts() {
+        long now = System.nanoTime();
+        for (Subscription subscription : writing) {
+            long started = subscription.sendStartedAt;
+            if (started != 0 && now - started > writeTimeoutNanos) {
+                subscription.stall(started);
+            }
+        }
+    }
+
+    /**
+     * 排空線程卡在停滯連接的寫出上時補充一個平台線程，寫出返回後收回；
+     * 補充的線程數以停滯連接數為上限，每個最多保持到容器的寫出逾時
+     */
+    private void resizeDispatcher(int delta) {
+        if (platformDispatcher == null) {
+            return;
+        }
+        synchronized (platformDispatcher) {
+            if (delta > 0) {
+                platformDispatcher.setMaximumPoolSize(platformDispatcher.getMaximumPoolSize() + delta);
+                platformDispatcher.setCorePoolSize(platformDispatcher.getCorePoolSize() + delta);
+            } else {
+                platformDispatcher.setCorePoolSize(platformDispatcher.getCorePoolSize() + delta);
+                platformDispatcher.setMaximumPoolSize(platformDispatcher.getMaximumPoolSize() + delta);
+            }
+        }
+    }
+
+    /**
+     * 事件內容，時間值由共用 ObjectMapper 的 DateTimeCodecModule 與任務JSON一致地寫出
+     */
+    private static Map<String, Object> payload(TaskChangeEvent event) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("type", event.getType());
+        payload.put("taskId", event.getTaskId());
+        switch (event.getType()) {
+            case SAVED:
+                payload.put("task", event.getTask());
+                break;
+            case PATCHED:
+                Map<String, Object> changes = new LinkedHashMap<>();
+                changes.putAll(event.getPatch().getChanges());
+                payload.put("changes", changes);
+                payload.put("updatedAt", event.getUpdatedAt());
+                break;
+            case SERIES_DELETED:
+                payload.put("from", event.getFrom());
+                break;
+            default:
+                break;
+        }
+        return payload;
+    }
+
+    private static ThreadFactory daemon(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * 待發送的事件；SseEventBuilder 在發送時會被修改，不能在連接間共用，
+     * 因此隊列中只保存事件名及已序列化的JSON字串（按字串原樣寫出，不再經過 Jackson）
+     */
+    private static final class Message {
+        static final Message HEARTBEAT = new Message(null, null);
+
+        final String name;
+        final String data;
+
+        Message(String name, String data) {
+            this.name = name;
+            this.data = data;
+        }
+
+        SseEmitter.SseEventBuilder toEvent() {
+            if (name == null) {
+                return SseEmitter.event().comment("ping");
+            }
+            return SseEmitter.event().name(name).data(data);
+        }
+    }
+
+    /**
+     * 單個推送連接
+     * 同一時間最多一個線程在排空隊列，保證事件按順序寫出
+     */
+    private final class Subscription {
+        final Long userId;
+        final LocalDateTime from;
+        final LocalDateTime until;
+        final SseEmitter emitter;
+        final ArrayBlockingQueue<Message> queue = new ArrayBlockingQueue<>(BUFFER_SIZE);
+        final AtomicBoolean draining = new AtomicBoolean();
+        final AtomicBoolean completed = new AtomicBoolean();
+        volatile boolean overflowed;
+        volatile boolean closed;
+        /**
+         * 已為本連接卡住的寫出補充了排空線程，由本對象的鎖保護
+         */
+        boolean stalled;
+        /**
+         * 當前寫出開始的時刻（System.nanoTime），0 表示沒有進行中的寫出
+         */
+        volatile long sendStartedAt;
+
+        Subscription(Long userId, LocalDateTime from, LocalDateTime until, SseEmitter emitter) {
+            this.userId = userId;
+            this.from = from;
+            this.until = until;
+            this.emitter = emitter;
+        }
+
+        /**
+         * 任務（或其展開的實例）是否可能出現在可見窗口內
+         */
+        boolean covers(Task task) {
+            if (task == null) {
+                return false;
+            }
+            if (from == null) {
+                return true;
+            }
+            if (RecurrenceExpander.isVirtualSeries(task)) {
+                return task.getStartTime().isBefore(until)
+                    && (task.getRepeatEndDate() == null || !task.getRepeatEndDate().isBefore(from));
+            }
+            LocalDateTime end = task.getEndTime() != null ? task.getEndTime() : task.getStartTime();
+            return task.getStartTime().isBefore(until) && !end.isBefore(from);
+        }
+
+        void offer(Message message) {
+            if (closed) {
+                return;
+            }
+            if (!queue.offer(message)) {
+                overflowed = true;
+                queue.clear();
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    dispatcher.execute(this::drain);
+                } catch (RuntimeException e) {
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                while (!closed) {
+                    if (overflowed) {
+                        overflowed = false;
+                        queue.clear();
+                        send(new Message("resync", "{}"));
+                    }
+                    Message message = queue.poll();
+                    if (message == null) {
+                        break;
+                    }
+                    send(message);
+                }
+            } catch (IOException | IllegalStateException e) {
+                // 客戶端已斷開
+                close();
+            } finally {
+                draining.set(false);
+            }
+            if (closed) {
+                // 寫出期間被判定停滯或被關閉的連接，在寫出返回後才能結束
+                complete();
+            } else if (overflowed || !queue.isEmpty()) {
+                schedule();
+            }
+        }
+
+        private void send(Message message) throws IOException {
+            sendStartedAt = System.nanoTime();
+            writing.add(this);
+            try {
+                emitter.send(message.toEvent());
+            } finally {
+                writing.remove(this);
+                sendStartedAt = 0;
+                unstall();
+            }
+        }
+
+        /**
+         * 寫出逾時：補充排空線程並移除連接，SseEmitter 由卡住的線程在寫出返回後結束
+         *
+         * @param started 判定逾時的那次寫出的開始時刻，寫出已返回或已換成下一次時不處理
+         */
+        void stall(long started) {
+            synchronized (this) {
+                if (stalled || sendStartedAt != started) {
+                    return;
+                }
+                stalled = true;
+                stalledWriters.incrementAndGet();
+                resizeDispatcher(1);
+            }
+            writeTimeouts.incrementAndGet();
+            if (detach()) {
+                logger.warn("用戶 {} 的推送連接寫出超過 {}ms，已移除", userId,
+                    TimeUnit.NANOSECONDS.toMillis(writeTimeoutNanos));
+            }
+        }
+
+        private synchronized void unstall() {
+            if (stalled) {
+                stalled = false;
+                stalledWriters.decrementAndGet();
+                resizeDispatcher(-1);
+            }
+        }
+
+        void close() {
+            // 寫出進行中時不在此結束，避免與卡住的寫出爭用 SseEmitter 的鎖
+            if (detach() && sendStartedAt == 0) {
+                complete();
+            }
+        }
+
+        /**
+         * 停止接收事件並從連接列表移除
+         *
+         * @return 是否由本次調用移除
+         */
+        private boolean detach() {
+            if (closed) {
+                return false;
+            }
+            closed = true;
+            queue.clear();
+            subscriptions.computeIfPresent(userId, (id, list) -> {
+                list.remove(this);
+                return list.isEmpty() ? null : list;
+            });
+            return true;
+        }
+
+        private void complete() {
+            if (!completed.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                emitter.complete();
+            } catch (IllegalStateException e) {
+                // 連接已結束
+            }
+        }
+    }
+}
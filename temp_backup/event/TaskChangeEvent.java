@@ -0,0 +1,149 @@
+package com.taskmanager.event;
+
+import com.taskmanager.dto.TaskPatch;
+import com.taskmanager.model.Task;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * 任務變更事件
+ * 由 TaskService 在每次寫入後發佈，供記憶體索引等元件同步狀態
+ * 系列批量刪除時 taskId 為原始任務ID，監聽方自行找出受影響的實例；
+ * 部分更新只攜帶補丁，監聽方把補丁套用到自己保存的快照上
+ */
+public class TaskChangeEvent {
+
+    public enum Type {
+        SAVED, PATCHED, DELETED, SERIES_DELETED
+    }
+
+    private final Type type;
+    private final Long userId;
+    private final Long taskId;
+    private final Task task;
+    private final Task previous;
+    private final LocalDateTime from;
+    private final TaskPatch patch;
+    private final LocalDateTime updatedAt;
+
+    private TaskChangeEvent(Type type, Long userId, Long taskId, Task task, Task previous, LocalDateTime from) {
+        this(type, userId, taskId, task, previous, from, null, null);
+    }
+
+    private TaskChangeEvent(Type type, Long userId, Long taskId, Task task, Task previous, LocalDateTime from,
+                            TaskPatch patch, LocalDateTime updatedAt) {
+        this.type = type;
+        this.userId = userId;
+        this.taskId = taskId;
+        this.task = task;
+        this.previous = previous;
+        this.from = from;
+        this.patch = patch;
+        this.updatedAt = updatedAt;
+    }
+
+    /**
+     * 任務已創建，攜帶寫入後的快照
+     */
+    public static TaskChangeEvent saved(Task task) {
+        return saved(task, null);
+    }
+
+    /**
+     * 任務已創建或更新，攜帶寫入後的快照及寫入前的快照（創建時為null）
+     */
+    public static TaskChangeEvent saved(Task task, Task previous) {
+        return new TaskChangeEvent(Type.SAVED, task.getUserId(), task.getId(), task.copy(), previous, null);
+    }
+
+    /**
+     * 任務已按補丁部分更新，寫入後的完整內容需由監聽方自行推算
+     *
+     * @param updatedAt 寫入資料庫的修改時間
+     */
+    public static TaskChangeEvent patched(Long userId, Long taskId, TaskPatch patch, LocalDateTime updatedAt) {
+        return new TaskChangeEvent(Type.PATCHED, userId, taskId, null, null, null, patch, updatedAt);
+    }
+
+    /**
+     * 任務已刪除，刪除前的內容未知
+     */
+    public static TaskChangeEvent deleted(Long userId, Long taskId) {
+        return new TaskChangeEvent(Type.DELETED, userId, taskId, null, null, null);
+    }
+
+    /**
+     * 系列中已物化的重複任務已被批量刪除
+     *
+     * @param userId 系列所屬用戶ID
+     * @param originalTaskId 原始任務ID
+     * @param from 被刪除實例的起始時間（含），null表示整個系列
+     */
+    public static TaskChangeEvent seriesDeleted(Long userId, Long originalTaskId, LocalDateTime from) {
+        return new TaskChangeEvent(Type.SERIES_DELETED, userId, originalTaskId, null, null, from);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * 任務所屬用戶ID，監聽方按用戶分區維護狀態
+     */
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Long getTaskId() {
+        return taskId;
+    }
+
+    /**
+     * 寫入後的任務快照，部分更新及刪除事件為null
+     */
+    public Task getTask() {
+        return task;
+    }
+
+    /**
+     * 寫入前的任務快照，未知時為null
+     */
+    public Task getPrevious() {
+        return previous;
+    }
+
+    /**
+     * 系列刪除的起始時間，null表示整個系列
+     */
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    /**
+     * 部分更新的補丁，其他事件為null
+     */
+    public TaskPatch getPatch() {
+        return patch;
+    }
+
+    /**
+     * 部分更新寫入的修改時間，其他事件為null
+     */
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    /**
+     * 把部分更新套用到監聽方保存的快照上，返回新的快照
+     * 快照屬於其他用戶時返回null，不做修改
+     */
+    public Task applyPatch(Task snapshot) {
+        if (snapshot == null || !Objects.equals(snapshot.getUserId(), userId)) {
+            return null;
+        }
+        Task patched = snapshot.copy();
+        patch.applyTo(patched, updatedAt);
+        return patched;
+    }
+}
@@ -0,0 +1,356 @@
+package com.taskmanager.index;
+
+import com.taskmanager.event.TaskChangeEvent;
+import com.taskmanager.model.Task;
+import com.taskmanager.repository.TaskRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 過期任務索引
+ *
+ * 功能說明：
+ * - 在記憶體中保存所有未完成（PENDING / IN_PROGRESS）且有結束時間的任務
+ * - 尚未過期的任務按結束時間放入最小堆，後台線程只在堆頂到期時喚醒，把到期任務移入過期集合
+ * - 過期集合按用戶分區，以 (endTime, id) 排序，查詢直接返回該用戶的集合，複雜度為 O(k)
+ * - 狀態更新、標記完成、改期及刪除通過 TaskChangeEvent 增量修正；
+ *   堆中的舊項目不即時刪除，出堆時與當前快照比對後丟棄
+ * - 啟動時分頁載入，之後不再查詢資料表
+ *
+ * 通過 app.overdue-index.enabled=true 開啟，未開啟或尚未載入完成時，
+ * TaskService 會退回資料庫查詢
+ */
+@Component
+@ConditionalOnProperty(name = "app.overdue-index.enabled", havingValue = "true")
+public class OverdueTaskIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(OverdueTaskIndex.class);
+
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    /**
+     * 堆中失效項目超過此數量且多於有效項目時重建堆
+     */
+    private static final int COMPACT_THRESHOLD = 1024;
+
+    private static final Comparator<Task> BY_END_TIME =
+        Comparator.comparing(Task::getEndTime).thenComparing(Task::getId);
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Long, Task> openById = new HashMap<>();
+    private final Map<Long, TreeSet<Task>> overdueByUser = new HashMap<>();
+    private final Map<Long, Set<Long>> childrenBySeries = new HashMap<>();
+    private final PriorityQueue<Task> deadlines = new PriorityQueue<>(BY_END_TIME);
+    private int overdueCount = 0;
+
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "overdue-sweeper");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private ScheduledFuture<?> nextSweep;
+    private LocalDateTime nextSweepAt;
+
+    private volatile boolean ready = false;
+    private boolean loading = false;
+    private final Set<Long> changedWhileLoading = new HashSet<>();
+
+    /**
+     * 應用啟動完成後分頁載入未完成且有結束時間的任務
+     * 載入期間收到的變更優先，避免被較舊的分頁資料覆蓋
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        lock.lock();
+        try {
+            loading = true;
+            changedWhileLoading.clear();
+        } finally {
+            lock.unlock();
+        }
+
+        Long afterId = 0L;
+        List<Task> batch;
+        do {
+            batch = taskRepository.findOpenWithEndTimePageAfter(afterId, PageRequest.of(0, LOAD_BATCH_SIZE));
+            lock.lock();
+            try {
+                LocalDateTime now = LocalDateTime.now();
+                for (Task task : batch) {
+                    if (!changedWhileLoading.contains(task.getId())) {
+                        put(task, now);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (!batch.isEmpty()) {
+                afterId = batch.get(batch.size() - 1).getId();
+            }
+        } while (batch.size() == LOAD_BATCH_SIZE);
+
+        lock.lock();
+        try {
+            loading = false;
+            changedWhileLoading.clear();
+            ready = true;
+            scheduleSweep();
+            logger.info("過期任務索引載入完成，未完成 {} 筆，其中已過期 {} 筆", openById.size(), overdueCount);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 同步任務寫入，事務提交後執行
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskChange(TaskChangeEvent event) {
+        boolean reload = false;
+        lock.lock();
+        try {
+            if (loading) {
+                changedWhileLoading.add(event.getTaskId());
+            }
+            LocalDateTime now = LocalDateTime.now();
+            switch (event.getType()) {
+                case SAVED:
+                    put(event.getTask(), now);
+                    break;
+                case PATCHED:
+                    Task snapshot = openById.get(event.getTaskId());
+                    if (snapshot != null) {
+                        Task patched = event.applyPatch(snapshot);
+                        if (patched != null) {
+                            put(patched, now);
+                        }
+                    } else {
+                        // 不在索引中的任務（已完成或沒有結束時間）被重新打開或設定結束時間，需讀取完整內容
+                        Map<String, Object> changes = event.getPatch().getChanges();
+                        reload = isOpen(changes.get("status")) || changes.containsKey("endTime");
+                    }
+                    break;
+                case DELETED:
+                    remove(event.getTaskId());
+                    break;
+                case SERIES_DELETED:
+                    removeSeriesChildren(event.getTaskId(), event.getFrom());
+                    break;
+                default:
+                    break;
+            }
+            scheduleSweep();
+        } finally {
+            lock.unlock();
+        }
+        if (reload) {
+            taskRepository.findById(event.getTaskId()).ifPresent(task -> {
+                lock.lock();
+                try {
+                    put(task.copy(), LocalDateTime.now());
+                    scheduleSweep();
+                } finally {
+                    lock.unlock();
+                }
+            });
+        }
+    }
+
+    /**
+     * 索引是否已載入完成，可用於回答查詢
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 用戶已過期的未完成任務，按結束時間排序
+     * 讀取前先處理已到期但後台線程尚未處理的項目，結果與查詢時間一致
+     */
+    public List<Task> findOverdue(Long userId) {
+        lock.lock();
+        try {
+            sweepDue(LocalDateTime.now());
+            TreeSet<Task> overdue = overdueByUser.get(userId);
+            return overdue != null ? new ArrayList<>(overdue) : new ArrayList<>();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sweeper.shutdownNow();
+    }
+
+    private void sweep() {
+        lock.lock();
+        try {
+            nextSweep = null;
+            nextSweepAt = null;
+            sweepDue(LocalDateTime.now());
+            scheduleSweep();
+        } catch (RuntimeException e) {
+            logger.error("過期任務掃描失敗", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 把結束時間早於 now 的任務移入過期集合
+     */
+    private void sweepDue(LocalDateTime now) {
+        while (!deadlines.isEmpty() && deadlines.peek().getEndTime().isBefore(now)) {
+            Task task = deadlines.poll();
+            if (isCurrent(task)) {
+                addOverdue(task);
+            }
+        }
+    }
+
+    /**
+     * 在下一個有效堆頂的結束時間之後喚醒；已排定的喚醒不晚於堆頂時保持不變
+     */
+    private void scheduleSweep() {
+        if (!ready) {
+            return;
+        }
+        while (!deadlines.isEmpty() && !isCurrent(deadlines.peek())) {
+            deadlines.poll();
+        }
+        if (deadlines.isEmpty()) {
+            return;
+        }
+        LocalDateTime head = deadlines.peek().getEndTime();
+        if (nextSweep != null && !head.isBefore(nextSweepAt)) {
+            return;
+        }
+        if (nextSweep != null) {
+            nextSweep.cancel(false);
+        }
+        // 過期條件為 endTime < now，在結束時間之後1毫秒喚醒
+        long delay = Math.max(0, Duration.between(LocalDateTime.now(), head).toMillis() + 1);
+        nextSweepAt = head;
+        nextSweep = sweeper.schedule(this::sweep, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void put(Task task, LocalDateTime now) {
+        remove(task.getId());
+        if (!isOpen(task.getStatus()) || task.getEndTime() == null) {
+            return;
+        }
+        openById.put(task.getId(), task);
+        if (task.getOriginalTaskId() != null) {
+            childrenBySeries.computeIfAbsent(task.getOriginalTaskId(), k -> new HashSet<>()).add(task.getId());
+        }
+        if (task.getEndTime().isBefore(now)) {
+            addOverdue(task);
+        } else {
+            deadlines.add(task);
+            compactIfNeeded();
+        }
+    }
+
+    private void remove(Long taskId) {
+        Task task = openById.remove(taskId);
+        if (task == null) {
+            return;
+        }
+        TreeSet<Task> overdue = overdueByUser.get(task.getUserId());
+        if (overdue != null && overdue.remove(task)) {
+            overdueCount--;
+            if (overdue.isEmpty()) {
+                overdueByUser.remove(task.getUserId());
+            }
+        }
+        Long originalTaskId = task.getOriginalTaskId();
+        if (originalTaskId != null) {
+            Set<Long> children = childrenBySeries.get(originalTaskId);
+            if (children != null) {
+                children.remove(taskId);
+                if (children.isEmpty()) {
+                    childrenBySeries.remove(originalTaskId);
+                }
+            }
+        }
+    }
+
+    /**
+     * 移除系列中從 from 開始（含）的已物化實例，from為null時移除全部
+     */
+    private void removeSeriesChildren(Long originalTaskId, LocalDateTime from) {
+        Set<Long> children = childrenBySeries.get(originalTaskId);
+        if (children == null) {
+            return;
+        }
+        for (Long childId : new ArrayList<>(children)) {
+            Task task = openById.get(childId);
+            if (task != null && (from == null || !task.getStartTime().isBefore(from))) {
+                remove(childId);
+            }
+        }
+    }
+
+    private void addOverdue(Task task) {
+        if (overdueByUser.computeIfAbsent(task.getUserId(), k -> new TreeSet<>(BY_END_TIME)).add(task)) {
+            overdueCount++;
+        }
+    }
+
+    /**
+     * 堆中的項目是否仍是該任務的當前快照（改期、完成或刪除後舊項目失效）
+     */
+    private boolean isCurrent(Task task) {
+        return openById.get(task.getId()) == task;
+    }
+
+    /**
+     * 頻繁改期會在堆中留下大量失效項目，超過有效項目數時只保留有效項目重建
+     */
+    private void compactIfNeeded() {
+        int valid = openById.size() - overdueCount;
+        if (deadlines.size() > COMPACT_THRESHOLD && deadlines.size() > 2 * valid) {
+            List<Task> current = new ArrayList<>(valid);
+            for (Task task : deadlines) {
+                if (isCurrent(task)) {
+                    current.add(task);
+                }
+            }
+            deadlines.clear();
+            deadlines.addAll(current);
+        }
+    }
+
+    private static boolean isOpen(Object status) {
+        return status == Task.Status.PENDING || status == Task.Status.IN_PROGRESS;
+    }
+}
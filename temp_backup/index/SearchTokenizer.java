@@ -0,0 +1,147 @@
+package com.taskmanager.index;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 搜索分詞器
+ *
+ * 功能說明：
+ * - 文字先經 NFKC 正規化並轉為小寫，全形英數字與半形視為相同
+ * - 中日韓文字沒有空格分詞，連續的 CJK 字元同時產生單字及相鄰二字詞（bigram）
+ * - 其他文字按字母及數字切成單詞，查詢時單詞按子字串匹配（前綴經詞典，詞中經後綴表），
+ *   例如「port」命中「report」；跨越空格或標點的子字串不匹配
+ *
+ * 查詢「專案會議」會拆為「專案」「案會」「會議」三個詞，
+ * 全部命中才算匹配，效果接近原先的子字串匹配
+ */
+public final class SearchTokenizer {
+
+    private SearchTokenizer() {
+    }
+
+    /**
+     * 查詢詞：CJK 詞精確匹配，其他單詞按子字串匹配
+     */
+    public static final class QueryTerm {
+        final String text;
+        final boolean prefix;
+
+        QueryTerm(String text, boolean prefix) {
+            this.text = text;
+            this.prefix = prefix;
+        }
+    }
+
+    /**
+     * 生成索引詞，同一個詞出現多次會重複返回，供計算詞頻
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        for (Run run : runs(normalize(text))) {
+            if (run.cjk) {
+                for (int i = 0; i < run.codePoints.length; i++) {
+                    tokens.add(new String(run.codePoints, i, 1));
+                    if (i + 1 < run.codePoints.length) {
+                        tokens.add(new String(run.codePoints, i, 2));
+                    }
+                }
+            } else {
+                tokens.add(new String(run.codePoints, 0, run.codePoints.length));
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * 生成查詢詞
+     * 單個 CJK 字元查單字，兩個以上查相鄰二字詞
+     */
+    public static List<QueryTerm> tokenizeQuery(String query) {
+        List<QueryTerm> terms = new ArrayList<>();
+        if (query == null || query.isEmpty()) {
+            return terms;
+        }
+        for (Run run : runs(normalize(query))) {
+            if (run.cjk && run.codePoints.length > 1) {
+                for (int i = 0; i + 1 < run.codePoints.length; i++) {
+                    terms.add(new QueryTerm(new String(run.codePoints, i, 2), false));
+                }
+            } else {
+                terms.add(new QueryTerm(new String(run.codePoints, 0, run.codePoints.length), !run.cjk));
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * 非 CJK 索引詞的真後綴（不含詞本身），用於詞中子字串匹配；CJK 詞返回空列表
+     */
+    public static List<String> suffixes(String term) {
+        List<String> suffixes = new ArrayList<>();
+        if (term.isEmpty() || isCjk(term.codePointAt(0))) {
+            return suffixes;
+        }
+        for (int i = term.offsetByCodePoints(0, 1); i < term.length(); i = term.offsetByCodePoints(i, 1)) {
+            suffixes.add(term.substring(i));
+        }
+        return suffixes;
+    }
+
+    /**
+     * 正規化後的整段文字，用於對候選結果判斷是否完整包含查詢字串
+     */
+    public static String normalize(String text) {
+        return text == null ? "" : Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 把文字切成連續的 CJK 字元段及字母數字段，其餘字元作為分隔符
+     */
+    private static List<Run> runs(String text) {
+        List<Run> runs = new ArrayList<>();
+        int[] codePoints = text.codePoints().toArray();
+        int start = 0;
+        while (start < codePoints.length) {
+            int cp = codePoints[start];
+            if (!Character.isLetterOrDigit(cp)) {
+                start++;
+                continue;
+            }
+            boolean cjk = isCjk(cp);
+            int end = start + 1;
+            while (end < codePoints.length && Character.isLetterOrDigit(codePoints[end])
+                    && isCjk(codePoints[end]) == cjk) {
+                end++;
+            }
+            int[] run = new int[end - start];
+            System.arraycopy(codePoints, start, run, 0, run.length);
+            runs.add(new Run(run, cjk));
+            start = end;
+        }
+        return runs;
+    }
+
+    private static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+            || script == Character.UnicodeScript.HIRAGANA
+            || script == Character.UnicodeScript.KATAKANA
+            || script == Character.UnicodeScript.HANGUL;
+    }
+
+    private static final class Run {
+        final int[] codePoints;
+        final boolean cjk;
+
+        Run(int[] codePoints, boolean cjk) {
+            this.codePoints = codePoints;
+            this.cjk = cjk;
+        }
+    }
+}
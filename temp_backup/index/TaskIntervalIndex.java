@@ -0,0 +1,381 @@
+package com.taskmanager.index;
+
+import com.taskmanager.dto.TaskCursor;
+import com.taskmanager.event.TaskChangeEvent;
+import com.taskmanager.model.Task;
+import com.taskmanager.repository.TaskRepository;
+import com.taskmanager.service.RecurrenceExpander;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 任務時間區間索引
+ *
+ * 功能說明：
+ * - 在記憶體中維護所有任務的 [startTime, endTime] 區間，按用戶分區
+ * - 每個用戶一棵以 (startTime, id) 為鍵的樹堆（treap），每個節點記錄子樹最大結束時間
+ * - 重疊查詢複雜度為 O(log n + k)，n 為該用戶的任務數，跨越查詢窗口的多日任務也能命中
+ * - 另外記錄虛擬重複系列，供查詢時展開實例
+ * - 啟動時分頁載入，之後通過 TaskChangeEvent 增量維護
+ *
+ * 通過 app.task-index.enabled=true 開啟，未開啟或尚未載入完成時，
+ * TaskService 會退回資料庫查詢
+ */
+@Component
+@ConditionalOnProperty(name = "app.task-index.enabled", havingValue = "true")
+public class TaskIntervalIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskIntervalIndex.class);
+
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Node> nodesById = new HashMap<>();
+    private final Map<Long, Node> rootsByUser = new HashMap<>();
+    private final Map<Long, Map<Long, Task>> seriesByUser = new HashMap<>();
+    private final Map<Long, Set<Long>> childrenBySeries = new HashMap<>();
+
+    private volatile boolean ready = false;
+    private boolean loading = false;
+    private final Set<Long> changedWhileLoading = new HashSet<>();
+
+    /**
+     * 應用啟動完成後分頁載入全部任務
+     * 載入期間收到的變更優先，避免被較舊的分頁資料覆蓋
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        lock.writeLock().lock();
+        try {
+            loading = true;
+            changedWhileLoading.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        TaskCursor after = TaskCursor.FIRST;
+        List<Task> batch;
+        do {
+            batch = taskRepository.findPageAfter(after.getStartTime(), after.getId(),
+                PageRequest.of(0, LOAD_BATCH_SIZE));
+            lock.writeLock().lock();
+            try {
+                for (Task task : batch) {
+                    if (!changedWhileLoading.contains(task.getId())) {
+                        put(task.copy());
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (!batch.isEmpty()) {
+                Task last = batch.get(batch.size() - 1);
+                after = new TaskCursor(last.getStartTime(), last.getId());
+            }
+        } while (batch.size() == LOAD_BATCH_SIZE);
+
+        lock.writeLock().lock();
+        try {
+            loading = false;
+            changedWhileLoading.clear();
+            ready = true;
+            logger.info("任務區間索引載入完成，共 {} 筆", nodesById.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 同步任務寫入，事務提交後執行
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskChange(TaskChangeEvent event) {
+        lock.writeLock().lock();
+        try {
+            // 部分更新只能套用到已載入的快照上；尚未載入的任務稍後從資料庫讀到的已是新值
+            if (loading && (event.getType() != TaskChangeEvent.Type.PATCHED
+                    || nodesById.containsKey(event.getTaskId()))) {
+                changedWhileLoading.add(event.getTaskId());
+            }
+            switch (event.getType()) {
+                case SAVED:
+                    put(event.getTask());
+                    break;
+                case PATCHED:
+                    Node node = nodesById.get(event.getTaskId());
+                    Task patched = event.applyPatch(node != null ? node.task : null);
+                    if (patched != null) {
+                        put(patched);
+                    }
+                    break;
+                case DELETED:
+                    remove(event.getTaskId());
+                    break;
+                case SERIES_DELETED:
+                    removeSeriesChildren(event.getTaskId(), event.getFrom());
+                    break;
+                default:
+                    break;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 索引是否已載入完成，可用於回答查詢
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return nodesById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 查詢用戶與半開區間 [from, until) 有重疊的任務，按 (startTime, id) 排序
+     * 沒有結束時間的任務視為在開始時間點上的瞬時區間
+     */
+    public List<Task> findOverlapping(Long userId, LocalDateTime from, LocalDateTime until) {
+        List<Task> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            collect(rootsByUser.get(userId), from, until, result);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * 查詢用戶可能在 [from, until) 內產生實例的虛擬重複系列
+     * 系列數量遠少於任務數量，直接遍歷該用戶的系列
+     */
+    public List<Task> findRepeatSeries(Long userId, LocalDateTime from, LocalDateTime until) {
+        List<Task> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Map<Long, Task> userSeries = seriesByUser.getOrDefault(userId, Collections.emptyMap());
+            for (Task series : userSeries.values()) {
+                if (series.getStartTime().isBefore(until)
+                        && (series.getRepeatEndDate() == null || !series.getRepeatEndDate().isBefore(from))) {
+                    result.add(series);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    private void put(Task task) {
+        remove(task.getId());
+        Node node = new Node(task);
+        nodesById.put(task.getId(), node);
+        rootsByUser.put(task.getUserId(), insert(rootsByUser.get(task.getUserId()), node));
+        if (RecurrenceExpander.isVirtualSeries(task)) {
+            seriesByUser.computeIfAbsent(task.getUserId(), k -> new HashMap<>()).put(task.getId(), task);
+        }
+        if (task.getOriginalTaskId() != null) {
+            childrenBySeries.computeIfAbsent(task.getOriginalTaskId(), k -> new HashSet<>()).add(task.getId());
+        }
+    }
+
+    private void remove(Long taskId) {
+        Node node = nodesById.remove(taskId);
+        if (node != null) {
+            Long userId = node.task.getUserId();
+            Node root = delete(rootsByUser.get(userId), node);
+            if (root != null) {
+                rootsByUser.put(userId, root);
+            } else {
+                rootsByUser.remove(userId);
+            }
+            Map<Long, Task> userSeries = seriesByUser.get(userId);
+            if (userSeries != null) {
+                userSeries.remove(taskId);
+                if (userSeries.isEmpty()) {
+                    seriesByUser.remove(userId);
+                }
+            }
+            Long originalTaskId = node.task.getOriginalTaskId();
+            if (originalTaskId != null) {
+                Set<Long> children = childrenBySeries.get(originalTaskId);
+                if (children != null) {
+                    children.remove(taskId);
+                    if (children.isEmpty()) {
+                        childrenBySeries.remove(originalTaskId);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 移除系列中從 from 開始（含）的已物化實例，from為null時移除全部
+     */
+    private void removeSeriesChildren(Long originalTaskId, LocalDateTime from) {
+        Set<Long> children = childrenBySeries.get(originalTaskId);
+        if (children == null) {
+            return;
+        }
+        for (Long childId : new ArrayList<>(children)) {
+            Node node = nodesById.get(childId);
+            if (node != null && (from == null || !node.start.isBefore(from))) {
+                remove(childId);
+            }
+        }
+    }
+
+    private static void collect(Node node, LocalDateTime from, LocalDateTime until, List<Task> out) {
+        if (node == null || node.maxEnd.isBefore(from)) {
+            return;
+        }
+        collect(node.left, from, until, out);
+        if (node.start.isBefore(until)) {
+            if (!node.end.isBefore(from)) {
+                out.add(node.task);
+            }
+            collect(node.right, from, until, out);
+        }
+    }
+
+    private static Node insert(Node root, Node node) {
+        if (root == null) {
+            return node;
+        }
+        if (compare(node, root) < 0) {
+            root.left = insert(root.left, node);
+            if (root.left.priority > root.priority) {
+                root = rotateRight(root);
+            }
+        } else {
+            root.right = insert(root.right, node);
+            if (root.right.priority > root.priority) {
+                root = rotateLeft(root);
+            }
+        }
+        update(root);
+        return root;
+    }
+
+    private static Node delete(Node root, Node node) {
+        if (root == null) {
+            return null;
+        }
+        int cmp = compare(node, root);
+        if (cmp < 0) {
+            root.left = delete(root.left, node);
+        } else if (cmp > 0) {
+            root.right = delete(root.right, node);
+        } else {
+            root = merge(root.left, root.right);
+        }
+        if (root != null) {
+            update(root);
+        }
+        return root;
+    }
+
+    /**
+     * 合併兩棵樹，要求 a 中所有鍵都小於 b
+     */
+    private static Node merge(Node a, Node b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            update(a);
+            return a;
+        }
+        b.left = merge(a, b.left);
+        update(b);
+        return b;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+
+    private static void update(Node node) {
+        LocalDateTime maxEnd = node.end;
+        if (node.left != null && node.left.maxEnd.isAfter(maxEnd)) {
+            maxEnd = node.left.maxEnd;
+        }
+        if (node.right != null && node.right.maxEnd.isAfter(maxEnd)) {
+            maxEnd = node.right.maxEnd;
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private static int compare(Node a, Node b) {
+        int cmp = a.start.compareTo(b.start);
+        return cmp != 0 ? cmp : a.id.compareTo(b.id);
+    }
+
+    private static final class Node {
+        final Task task;
+        final Long id;
+        final LocalDateTime start;
+        final LocalDateTime end;
+        final int priority = ThreadLocalRandom.current().nextInt();
+        LocalDateTime maxEnd;
+        Node left;
+        Node right;
+
+        Node(Task task) {
+            this.task = task;
+            this.id = task.getId();
+            this.start = task.getStartTime();
+            this.end = task.getEndTime() != null && task.getEndTime().isAfter(task.getStartTime())
+                ? task.getEndTime() : task.getStartTime();
+            this.maxEnd = end;
+        }
+    }
+}
@@ -0,0 +1,426 @@
+package com.taskmanager.index;
+
+import com.taskmanager.dto.TaskCursor;
+import com.taskmanager.event.TaskChangeEvent;
+import com.taskmanager.model.Task;
+import com.taskmanager.repository.TaskRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 任務全文搜索索引
+ *
+ * 功能說明：
+ * - 在記憶體中為標題、描述及分類建立倒排索引，分詞見 SearchTokenizer
+ * - 按用戶分區，每個用戶有獨立的詞典及倒排列表，查詢不會觸及其他用戶的資料
+ * - 詞典以 TreeMap 保存，英文單詞可按前綴查找；另以後綴表把詞的每個真後綴映射回原詞，
+ *   使查詢詞也能命中詞中間的子字串（「port」命中「report」），與原先的 LIKE '%kw%' 一致
+ * - 查詢只訪問命中詞的倒排列表，成本與命中數有關，而不是任務總數
+ * - 子字串詞命中的詞超過 MAX_PREFIX_EXPANSION 個時（例如只有一兩個字母的查詢）不截斷，
+ *   search 返回null，由 TaskService 改用資料庫模糊查詢返回完整結果
+ * - 按 TF-IDF 加權評分：標題權重最高，其次分類、描述；完整包含查詢字串的再加分
+ * - 啟動時分頁載入，之後通過 TaskChangeEvent 增量維護
+ *
+ * 預設開啟，可通過 app.search-index.enabled=false 關閉；
+ * 未開啟或尚未載入完成時，TaskService 會退回資料庫模糊查詢
+ */
+@Component
+@ConditionalOnProperty(name = "app.search-index.enabled", havingValue = "true", matchIfMissing = true)
+public class TaskSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskSearchIndex.class);
+
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    private static final int TITLE_WEIGHT = 3;
+    private static final int CATEGORY_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    /**
+     * 完整包含查詢字串時的加分，標題中出現加倍
+     */
+    private static final double PHRASE_BONUS = 2.0;
+
+    /**
+     * 單個子字串詞最多展開的詞數，避免一兩個字母的查詢掃描整個詞典；超出時索引不回答該查詢
+     */
+    private static final int MAX_PREFIX_EXPANSION = 200;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Partition> partitions = new HashMap<>();
+    private final Map<Long, Task> tasksById = new HashMap<>();
+    private final Map<Long, Set<String>> termsById = new HashMap<>();
+    private final Map<Long, Set<Long>> childrenBySeries = new HashMap<>();
+
+    private volatile boolean ready = false;
+    private boolean loading = false;
+    private final Set<Long> changedWhileLoading = new HashSet<>();
+
+    /**
+     * 應用啟動完成後分頁載入全部任務
+     * 載入期間收到的變更優先，避免被較舊的分頁資料覆蓋
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        lock.writeLock().lock();
+        try {
+            loading = true;
+            changedWhileLoading.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        TaskCursor after = TaskCursor.FIRST;
+        List<Task> batch;
+        do {
+            batch = taskRepository.findPageAfter(after.getStartTime(), after.getId(),
+                PageRequest.of(0, LOAD_BATCH_SIZE));
+            lock.writeLock().lock();
+            try {
+                for (Task task : batch) {
+                    if (!changedWhileLoading.contains(task.getId())) {
+                        put(task.copy());
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (!batch.isEmpty()) {
+                Task last = batch.get(batch.size() - 1);
+                after = new TaskCursor(last.getStartTime(), last.getId());
+            }
+        } while (batch.size() == LOAD_BATCH_SIZE);
+
+        lock.writeLock().lock();
+        try {
+            loading = false;
+            changedWhileLoading.clear();
+            ready = true;
+            logger.info("任務搜索索引載入完成，共 {} 筆，{} 個用戶", tasksById.size(), partitions.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 同步任務寫入，事務提交後執行
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskChange(TaskChangeEvent event) {
+        lock.writeLock().lock();
+        try {
+            // 部分更新只能套用到已載入的快照上；尚未載入的任務稍後從資料庫讀到的已是新值
+            if (loading && (event.getType() != TaskChangeEvent.Type.PATCHED
+                    || tasksById.containsKey(event.getTaskId()))) {
+                changedWhileLoading.add(event.getTaskId());
+            }
+            switch (event.getType()) {
+                case SAVED:
+                    put(event.getTask());
+                    break;
+                case PATCHED:
+                    Task patched = event.applyPatch(tasksById.get(event.getTaskId()));
+                    if (patched != null) {
+                        put(patched);
+                    }
+                    break;
+                case DELETED:
+                    remove(event.getTaskId());
+                    break;
+                case SERIES_DELETED:
+                    removeSeriesChildren(event.getTaskId(), event.getFrom());
+                    break;
+                default:
+                    break;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 索引是否已載入完成，可用於回答查詢
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return tasksById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 搜索用戶的任務，按相關度從高到低排序，相同分數按 (startTime, id) 排序
+     *
+     * @param userId 用戶ID
+     * @param query 查詢字串，所有查詢詞都必須命中
+     * @param offset 跳過的筆數
+     * @param limit 最多返回的筆數
+     * @return 排名後的一頁結果；有子字串詞展開超過 MAX_PREFIX_EXPANSION 個詞時返回null，
+     *         表示索引無法完整回答，調用方應改用其他查詢方式
+     */
+    public List<Task> search(Long userId, String query, int offset, int limit) {
+        List<SearchTokenizer.QueryTerm> terms = SearchTokenizer.tokenizeQuery(query);
+        if (terms.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String phrase = SearchTokenizer.normalize(query).trim();
+
+        lock.readLock().lock();
+        try {
+            Partition partition = partitions.get(userId);
+            if (partition == null) {
+                return new ArrayList<>();
+            }
+
+            // 每個查詢詞對應一組命中任務，先處理命中最少的詞以縮小交集
+            List<Map<Long, Integer>> matches = new ArrayList<>();
+            for (SearchTokenizer.QueryTerm term : terms) {
+                Map<Long, Integer> match = lookup(partition, term);
+                if (match == null) {
+                    return null;
+                }
+                if (match.isEmpty()) {
+                    return new ArrayList<>();
+                }
+                matches.add(match);
+            }
+            matches.sort(Comparator.comparingInt(Map::size));
+
+            int total = partition.size;
+            Map<Long, Double> scores = new HashMap<>();
+            Map<Long, Integer> smallest = matches.get(0);
+            double smallestIdf = idf(total, smallest.size());
+            for (Map.Entry<Long, Integer> entry : smallest.entrySet()) {
+                scores.put(entry.getKey(), smallestIdf * entry.getValue());
+            }
+            for (int i = 1; i < matches.size() && !scores.isEmpty(); i++) {
+                Map<Long, Integer> match = matches.get(i);
+                double termIdf = idf(total, match.size());
+                scores.entrySet().removeIf(entry -> !match.containsKey(entry.getKey()));
+                for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+                    entry.setValue(entry.getValue() + termIdf * match.get(entry.getKey()));
+                }
+            }
+
+            List<Scored> ranked = new ArrayList<>(scores.size());
+            for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+                Task task = tasksById.get(entry.getKey());
+                ranked.add(new Scored(task, entry.getValue() + phraseBonus(task, phrase)));
+            }
+            ranked.sort(Comparator.comparingDouble((Scored s) -> s.score).reversed()
+                .thenComparing(s -> s.task.getStartTime())
+                .thenComparing(s -> s.task.getId()));
+
+            List<Task> result = new ArrayList<>();
+            for (int i = offset; i < ranked.size() && result.size() < limit; i++) {
+                result.add(ranked.get(i).task);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 查出一個查詢詞命中的任務及加權詞頻
+     * 子字串詞合併所有包含它的詞的結果：以它開頭的詞來自詞典，詞中包含它的詞來自後綴表
+     *
+     * @return 命中的任務；子字串詞展開超過 MAX_PREFIX_EXPANSION 個詞時返回null
+     */
+    private static Map<Long, Integer> lookup(Partition partition, SearchTokenizer.QueryTerm term) {
+        if (!term.prefix) {
+            Map<Long, Integer> posting = partition.postings.get(term.text);
+            return posting != null ? posting : new HashMap<>();
+        }
+        Set<String> expanded = new HashSet<>();
+        for (String key : partition.postings.tailMap(term.text, true).keySet()) {
+            if (!key.startsWith(term.text)) {
+                break;
+            }
+            expanded.add(key);
+            if (expanded.size() > MAX_PREFIX_EXPANSION) {
+                return null;
+            }
+        }
+        for (Map.Entry<String, Set<String>> entry : partition.suffixes.tailMap(term.text, true).entrySet()) {
+            if (!entry.getKey().startsWith(term.text)) {
+                break;
+            }
+            expanded.addAll(entry.getValue());
+            if (expanded.size() > MAX_PREFIX_EXPANSION) {
+                return null;
+            }
+        }
+        Map<Long, Integer> merged = new HashMap<>();
+        for (String word : expanded) {
+            partition.postings.get(word).forEach((id, weight) -> merged.merge(id, weight, Integer::sum));
+        }
+        return merged;
+    }
+
+    private static double idf(int total, int documentFrequency) {
+        return Math.log(1.0 + (double) total / documentFrequency);
+    }
+
+    private static double phraseBonus(Task task, String phrase) {
+        if (phrase.isEmpty()) {
+            return 0;
+        }
+        if (SearchTokenizer.normalize(task.getTitle()).contains(phrase)) {
+            return PHRASE_BONUS * 2;
+        }
+        if (SearchTokenizer.normalize(task.getCategory()).contains(phrase)
+                || SearchTokenizer.normalize(task.getDescription()).contains(phrase)) {
+            return PHRASE_BONUS;
+        }
+        return 0;
+    }
+
+    private void put(Task task) {
+        remove(task.getId());
+        Map<String, Integer> weights = new HashMap<>();
+        addTerms(weights, task.getTitle(), TITLE_WEIGHT);
+        addTerms(weights, task.getCategory(), CATEGORY_WEIGHT);
+        addTerms(weights, task.getDescription(), DESCRIPTION_WEIGHT);
+
+        Partition partition = partitions.computeIfAbsent(task.getUserId(), k -> new Partition());
+        for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+            Map<Long, Integer> posting = partition.postings.get(entry.getKey());
+            if (posting == null) {
+                posting = new HashMap<>();
+                partition.postings.put(entry.getKey(), posting);
+                partition.addSuffixes(entry.getKey());
+            }
+            posting.put(task.getId(), entry.getValue());
+        }
+        partition.size++;
+        tasksById.put(task.getId(), task);
+        termsById.put(task.getId(), weights.keySet());
+        if (task.getOriginalTaskId() != null) {
+            childrenBySeries.computeIfAbsent(task.getOriginalTaskId(), k -> new HashSet<>()).add(task.getId());
+        }
+    }
+
+    private static void addTerms(Map<String, Integer> weights, String text, int weight) {
+        for (String token : SearchTokenizer.tokenize(text)) {
+            weights.merge(token, weight, Integer::sum);
+        }
+    }
+
+    private void remove(Long taskId) {
+        Task task = tasksById.remove(taskId);
+        Set<String> terms = termsById.remove(taskId);
+        if (task == null) {
+            return;
+        }
+        Partition partition = partitions.get(task.getUserId());
+        if (partition != null) {
+            for (String term : terms) {
+                Map<Long, Integer> posting = partition.postings.get(term);
+                if (posting != null) {
+                    posting.remove(taskId);
+                    if (posting.isEmpty()) {
+                        partition.postings.remove(term);
+                        partition.removeSuffixes(term);
+                    }
+                }
+            }
+            if (--partition.size == 0) {
+                partitions.remove(task.getUserId());
+            }
+        }
+        if (task.getOriginalTaskId() != null) {
+            Set<Long> children = childrenBySeries.get(task.getOriginalTaskId());
+            if (children != null) {
+                children.remove(taskId);
+                if (children.isEmpty()) {
+                    childrenBySeries.remove(task.getOriginalTaskId());
+                }
+            }
+        }
+    }
+
+    /**
+     * 移除系列中從 from 開始（含）的已物化實例，from為null時移除全部
+     */
+    private void removeSeriesChildren(Long originalTaskId, LocalDateTime from) {
+        Set<Long> children = childrenBySeries.get(originalTaskId);
+        if (children == null) {
+            return;
+        }
+        for (Long childId : new ArrayList<>(children)) {
+            Task child = tasksById.get(childId);
+            if (child != null && (from == null || !child.getStartTime().isBefore(from))) {
+                remove(childId);
+            }
+        }
+    }
+
+    /**
+     * 單個用戶的詞典、倒排列表及後綴表
+     */
+    private static final class Partition {
+        final TreeMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+        /**
+         * 非 CJK 詞的真後綴到原詞的映射，詞從詞典中移除時一併移除
+         */
+        final TreeMap<String, Set<String>> suffixes = new TreeMap<>();
+        int size;
+
+        void addSuffixes(String term) {
+            for (String suffix : SearchTokenizer.suffixes(term)) {
+                suffixes.computeIfAbsent(suffix, k -> new HashSet<>()).add(term);
+            }
+        }
+
+        void removeSuffixes(String term) {
+            for (String suffix : SearchTokenizer.suffixes(term)) {
+                Set<String> words = suffixes.get(suffix);
+                if (words != null) {
+                    words.remove(term);
+                    if (words.isEmpty()) {
+                        suffixes.remove(suffix);
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class Scored {
+        final Task task;
+        final double score;
+
+        Scored(Task task, double score) {
+            this.task = task;
+            this.score = score;
+        }
+    }
+}
@@ -3,7 +3,6 @@ package com.taskmanager.model;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
-import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import java.time.LocalDateTime;
@@ -19,8 +18,10 @@ import java.time.LocalDateTime;
  * 
  * 資料庫設計：
  * - 表格名稱：tasks
- * - 主鍵：id（自動遞增）
- * - 索引：startTime, status, priority, category
+ * - 主鍵：id（序列 tasks_seq，每次分配50個）
+ * - 索引：(user_id, start_time, id), (user_id, end_time),
+ *         (user_id, status, end_time), (start_time, id), original_task_id
+ * - 所有業務查詢都以 user_id 為首個條件
  * 
  * 業務規則：
  * - 任務標題為必填欄位
@@ -34,15 +35,34 @@ import java.time.LocalDateTime;
  * @since 2024-01-15
  */
 @Entity
-@Table(name = "tasks")
+@Table(name = "tasks", indexes = {
+    @Index(name = "idx_tasks_user_start_id", columnList = "user_id, start_time, id"),
+    @Index(name = "idx_tasks_user_end", columnList = "user_id, end_time"),
+    @Index(name = "idx_tasks_user_status_end", columnList = "user_id, status, end_time"),
+    @Index(name = "idx_tasks_start_id", columnList = "start_time, id"),
+    @Index(name = "idx_tasks_original_task_id", columnList = "original_task_id"),
+    @Index(name = "idx_tasks_user_change_seq", columnList = "user_id, change_seq")
+})
 public class Task {
 
+    /**
+     * 列表投影中描述預覽的長度，完整描述只在任務詳情中返回
+     */
+    public static final int DESCRIPTION_PREVIEW_LENGTH = 100;
+
+    /**
+     * 主鍵序列及每次預分配的ID數，TaskIdSequenceInitializer 按此校正序列起點
+     */
+    public static final String ID_SEQUENCE = "tasks_seq";
+    public static final int ID_ALLOCATION_SIZE = 50;
+
         /**
      * 任務唯一識別碼
-     * 資料庫主鍵，自動遞增
+     * 資料庫主鍵，由序列按50個一組預先分配，使批量插入可以使用JDBC批處理
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "task_seq")
+    @SequenceGenerator(name = "task_seq", sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
     
     /**
@@ -65,14 +85,12 @@ public class Task {
      * 必填欄位，定義任務的開始時間點
      */
     @NotNull(message = "開始時間不能為空")
-    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
     private LocalDateTime startTime;
     
     /**
      * 任務結束時間
      * 可選欄位，定義任務的結束時間點
      */
-    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
     private LocalDateTime endTime;
     
     /**
@@ -126,7 +144,6 @@ public class Task {
      * 重複結束日期
      * 重複任務的結束日期，null表示無限重複
      */
-    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
     private LocalDateTime repeatEndDate;
     
     /**
@@ -135,6 +152,13 @@ public class Task {
      */
     private Long originalTaskId;
 
+    /**
+     * 重複實例是否已物化
+     * false表示系列只保存規則，查詢時按需展開；
+     * true（或舊資料的null）表示實例已另存為獨立的資料列
+     */
+    private Boolean repeatMaterialized = false;
+
     /**
      * 任務所屬用戶
      * 用於多用戶系統的任務隔離
@@ -144,18 +168,39 @@ public class Task {
     @JsonIgnore
     private User user;
 
+    /**
+     * 所屬用戶ID
+     * 與 user 共用 user_id 欄位，只讀映射；查詢及記憶體索引按此分區，無需載入用戶實體
+     */
+    @Column(name = "user_id", insertable = false, updatable = false)
+    @JsonIgnore
+    private Long userId;
+
+    /**
+     * 樂觀鎖版本號
+     * 每次寫入加一；客戶端更新時帶回讀到的版本，版本不符表示任務已被他人修改
+     */
+    @Version
+    private Long version;
+
+    /**
+     * 最後一次寫入時用戶的任務變更序號，用於增量同步
+     * 由 TaskChangeLog 在事務提交前以批量 UPDATE 寫入，實體保存時不寫入，也不影響版本號
+     */
+    @Column(name = "change_seq", insertable = false, updatable = false)
+    @JsonIgnore
+    private Long changeSeq;
+
     /**
      * 任務創建時間
      * 自動設定，記錄任務的創建時間點
      */
-    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
     private LocalDateTime createdAt;
     
     /**
      * 任務最後更新時間
      * 自動更新，記錄任務的最後修改時間點
      */
-    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
     private LocalDateTime updatedAt;
 
     public enum Priority {
@@ -191,6 +236,62 @@ public class Task {
         this.startTime = startTime;
     }
 
+    /**
+     * 列表投影構造函數，由 TaskRepository 的 JPQL 構造表達式調用
+     * 建立的物件不受持久化上下文管理，沒有 user 代理，只用於序列化；
+     * description 只是前 DESCRIPTION_PREVIEW_LENGTH 個字元的預覽，不可用於寫回資料庫
+     */
+    public Task(Long id, String title, String description, LocalDateTime startTime, LocalDateTime endTime,
+                Priority priority, Status status, String category, String color, Boolean isAllDay,
+                RepeatType repeatType, Integer repeatInterval, LocalDateTime repeatEndDate,
+                Long originalTaskId, Boolean repeatMaterialized, Long userId, Long version,
+                LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this(title, description, startTime);
+        this.id = id;
+        this.endTime = endTime;
+        this.priority = priority;
+        this.status = status;
+        this.category = category;
+        this.color = color;
+        this.isAllDay = Boolean.TRUE.equals(isAllDay);
+        this.repeatType = repeatType;
+        this.repeatInterval = repeatInterval;
+        this.repeatEndDate = repeatEndDate;
+        this.originalTaskId = originalTaskId;
+        this.repeatMaterialized = repeatMaterialized;
+        this.userId = userId;
+        this.version = version;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+
+    /**
+     * 建立任務的分離副本
+     * 用於記憶體索引保存快照，避免受到受管實體後續修改的影響
+     */
+    public Task copy() {
+        Task copy = new Task(title, description, startTime);
+        copy.id = id;
+        copy.endTime = endTime;
+        copy.priority = priority;
+        copy.status = status;
+        copy.category = category;
+        copy.color = color;
+        copy.isAllDay = isAllDay;
+        copy.repeatType = repeatType;
+        copy.repeatInterval = repeatInterval;
+        copy.repeatEndDate = repeatEndDate;
+        copy.originalTaskId = originalTaskId;
+        copy.repeatMaterialized = repeatMaterialized;
+        copy.user = user;
+        copy.userId = userId;
+        copy.version = version;
+        copy.changeSeq = changeSeq;
+        copy.createdAt = createdAt;
+        copy.updatedAt = updatedAt;
+        return copy;
+    }
+
     // Getters and Setters
     public Long getId() {
         return id;
@@ -304,6 +405,14 @@ public class Task {
         this.originalTaskId = originalTaskId;
     }
 
+    public Boolean getRepeatMaterialized() {
+        return repeatMaterialized;
+    }
+
+    public void setRepeatMaterialized(Boolean repeatMaterialized) {
+        this.repeatMaterialized = repeatMaterialized;
+    }
+
     public User getUser() {
         return user;
     }
@@ -312,6 +421,26 @@ public class Task {
         this.user = user;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getChangeSeq() {
+        return changeSeq;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
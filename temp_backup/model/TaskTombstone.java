@@ -0,0 +1,92 @@
+package com.taskmanager.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * 任務刪除記錄
+ * 任務刪除後資料列不再存在，增量同步靠刪除記錄告知客戶端移除本地副本；
+ * 系列批量刪除只記錄一筆，客戶端移除該系列中從 fromTime 開始（null表示全部）的實例；
+ * 超過保留期的記錄由 TaskTombstonePurger 定期清理
+ */
+@Entity
+@Table(name = "task_tombstones", indexes = {
+    @Index(name = "idx_task_tombstones_user_seq", columnList = "user_id, change_seq"),
+    @Index(name = "idx_task_tombstones_deleted_at", columnList = "deleted_at")
+})
+public class TaskTombstone {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "task_tombstone_seq")
+    @SequenceGenerator(name = "task_tombstone_seq", sequenceName = "task_tombstones_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    /**
+     * 被刪除的任務ID；系列刪除時為原始任務ID
+     */
+    @Column(name = "task_id", nullable = false)
+    private Long taskId;
+
+    /**
+     * 是否為系列批量刪除
+     */
+    @Column(nullable = false)
+    private boolean series;
+
+    /**
+     * 系列刪除的起始時間（含），null表示整個系列
+     */
+    @Column(name = "from_time")
+    private LocalDateTime fromTime;
+
+    @Column(name = "change_seq", nullable = false)
+    private Long changeSeq;
+
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+
+    public TaskTombstone() {
+    }
+
+    public TaskTombstone(Long userId, Long taskId, boolean series, LocalDateTime fromTime, Long changeSeq,
+                         LocalDateTime deletedAt) {
+        this.userId = userId;
+        this.taskId = taskId;
+        this.series = series;
+        this.fromTime = fromTime;
+        this.changeSeq = changeSeq;
+        this.deletedAt = deletedAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Long getTaskId() {
+        return taskId;
+    }
+
+    public boolean isSeries() {
+        return series;
+    }
+
+    public LocalDateTime getFromTime() {
+        return fromTime;
+    }
+
+    public Long getChangeSeq() {
+        return changeSeq;
+    }
+
+    public LocalDateTime getDeletedAt() {
+        return deletedAt;
+    }
+}
@@ -5,7 +5,6 @@ import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import com.fasterxml.jackson.annotation.JsonIgnore;
-import com.fasterxml.jackson.annotation.JsonFormat;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -79,15 +78,42 @@ public class User {
     @Column(length = 10)
     private String language = "zh-TW";
 
-    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    /**
+     * 最後登入時間：只由 LastLoginWriteBehind 批次寫出（或 UserRepository.updateLastLoginAt），
+     * 實體保存時不寫入，避免資料修改以讀取時的舊值覆蓋
+     */
+    @Column(updatable = false)
     private LocalDateTime lastLoginAt;
 
-    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
     private LocalDateTime createdAt;
 
-    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
     private LocalDateTime updatedAt;
 
+    /**
+     * 任務變更序號：該用戶的任務每次寫入（含刪除）時遞增，用於增量同步
+     * 只由 UserRepository.incrementChangeSeq 以單條 UPDATE 遞增，實體保存時不寫入，避免以舊值覆蓋
+     */
+    @Column(name = "change_seq", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "BIGINT DEFAULT 0 NOT NULL")
+    @JsonIgnore
+    private Long changeSeq = 0L;
+
+    /**
+     * 已清理的刪除記錄中最大的變更序號，早於此序號的同步令牌可能錯過刪除，須重新完整載入
+     * 只由 UserRepository.markTombstonesPurged 以單條 UPDATE 寫入，實體保存時不寫入
+     */
+    @Column(name = "tombstones_purged_seq", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "BIGINT DEFAULT 0 NOT NULL")
+    @JsonIgnore
+    private Long tombstonesPurgedSeq = 0L;
+
+    /**
+     * 樂觀鎖版本號：每次保存實體時加一，併發修改同一用戶時後提交者失敗並重試，不會以舊值覆蓋
+     */
+    @Version
+    @JsonIgnore
+    private Long version;
+
     // 關聯關係
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JsonIgnore
@@ -227,6 +253,18 @@ public class User {
         this.updatedAt = updatedAt;
     }
 
+    public Long getChangeSeq() {
+        return changeSeq;
+    }
+
+    public Long getTombstonesPurgedSeq() {
+        return tombstonesPurgedSeq;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
     public List<Task> getTasks() {
         return tasks;
     }
@@ -0,0 +1,65 @@
+package com.taskmanager.reminder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * 記錄日誌並在記憶體中保留最近的提醒
+ * 在接入郵件、推送等正式發送目標前作為預設實作，可通過 app.reminders.log-sink=false 關閉
+ */
+@Component
+@ConditionalOnProperty(name = "app.reminders.log-sink", havingValue = "true", matchIfMissing = true)
+public class LoggingReminderSink implements ReminderSink {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoggingReminderSink.class);
+
+    /**
+     * 保留的最近提醒數
+     */
+    static final int RECENT_SIZE = 100;
+
+    private final Deque<Reminder> recent = new ArrayDeque<>(RECENT_SIZE);
+
+    @Override
+    public void remind(Reminder reminder) {
+        logger.info("任務提醒: 用戶 {} 的任務 {}「{}」將於 {} 開始", reminder.getUserId(), reminder.getTaskId(),
+            reminder.getTitle(), reminder.getStartTime());
+        synchronized (recent) {
+            if (recent.size() == RECENT_SIZE) {
+                recent.removeFirst();
+            }
+            recent.addLast(reminder);
+        }
+    }
+
+    /**
+     * 保留的最近提醒數
+     */
+    public int recentCount() {
+        synchronized (recent) {
+            return recent.size();
+        }
+    }
+
+    /**
+     * 指定用戶最近觸發的提醒，按觸發順序排列
+     */
+    public List<Reminder> recent(Long userId) {
+        List<Reminder> result = new ArrayList<>();
+        synchronized (recent) {
+            for (Reminder reminder : recent) {
+                if (userId.equals(reminder.getUserId())) {
+                    result.add(reminder);
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,82 @@
+package com.taskmanager.reminder;
+
+import com.taskmanager.model.Task;
+
+import java.time.LocalDateTime;
+
+/**
+ * 任務提醒
+ * 只保存提醒所需的欄位；虛擬重複系列另外保存系列規則，觸發後據此排定下一個實例的提醒
+ */
+public final class Reminder {
+
+    private final Long taskId;
+    private final Long userId;
+    private final Long originalTaskId;
+    private final String title;
+    private final LocalDateTime startTime;
+    private final LocalDateTime remindAt;
+    private final Task series;
+
+    private Reminder(Long taskId, Long userId, Long originalTaskId, String title, LocalDateTime startTime,
+                     LocalDateTime remindAt, Task series) {
+        this.taskId = taskId;
+        this.userId = userId;
+        this.originalTaskId = originalTaskId;
+        this.title = title;
+        this.startTime = startTime;
+        this.remindAt = remindAt;
+        this.series = series;
+    }
+
+    /**
+     * @param task 任務或虛擬重複系列
+     * @param startTime 被提醒的開始時間；系列為某個實例的開始時間
+     * @param remindAt 提醒時間
+     */
+    static Reminder of(Task task, LocalDateTime startTime, LocalDateTime remindAt, boolean series) {
+        return new Reminder(task.getId(), task.getUserId(), task.getOriginalTaskId(), task.getTitle(), startTime,
+            remindAt, series ? task : null);
+    }
+
+    /**
+     * 任務ID；虛擬重複系列的實例為系列（原始任務）ID
+     */
+    public Long getTaskId() {
+        return taskId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    /**
+     * 已物化實例所屬系列的原始任務ID，其他為null
+     */
+    public Long getOriginalTaskId() {
+        return originalTaskId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public LocalDateTime getRemindAt() {
+        return remindAt;
+    }
+
+    /**
+     * 是否為虛擬重複系列中某個實例的提醒
+     */
+    public boolean isSeries() {
+        return series != null;
+    }
+
+    Task getSeries() {
+        return series;
+    }
+}
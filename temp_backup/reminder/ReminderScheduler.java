@@ -0,0 +1,348 @@
+package com.taskmanager.reminder;
+
+import com.taskmanager.dto.TaskCursor;
+import com.taskmanager.event.TaskChangeEvent;
+import com.taskmanager.model.Task;
+import com.taskmanager.repository.TaskRepository;
+import com.taskmanager.service.RecurrenceExpander;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 任務提醒排程器
+ *
+ * 功能說明：
+ * - 在任務開始前 lead-minutes 分鐘觸發提醒，發送給所有 ReminderSink
+ * - 待觸發的提醒保存在分層時間輪中，加入及取消都是 O(1)，計時線程每個刻度只處理到期的槽
+ * - 啟動時分頁載入未完成的未來任務及虛擬重複系列，之後通過 TaskChangeEvent 增量維護，不定期掃描資料表
+ * - 虛擬重複系列同一時間只排定下一個實例的提醒，觸發後再排定之後的實例
+ * - 提醒時間已過但任務尚未開始時立即觸發；已開始、已完成或已取消的任務不提醒
+ *
+ * 通過 app.reminders.enabled=false 關閉
+ */
+@Component
+@ConditionalOnProperty(name = "app.reminders.enabled", havingValue = "true", matchIfMissing = true)
+public class ReminderScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReminderScheduler.class);
+
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    private final TaskRepository taskRepository;
+    private final List<ReminderSink> sinks;
+    private final Duration lead;
+    private final long tickMillis;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final TimingWheel<Reminder> wheel;
+    private final Map<Long, TimingWheel.Entry<Reminder>> entriesByTask = new HashMap<>();
+    private final Map<Long, Set<Long>> childrenBySeries = new HashMap<>();
+    private final AtomicLong fired = new AtomicLong();
+    private final ScheduledExecutorService ticker;
+
+    private volatile boolean ready = false;
+    private boolean loading = false;
+    private final Set<Long> changedWhileLoading = new HashSet<>();
+
+    public ReminderScheduler(TaskRepository taskRepository, ObjectProvider<ReminderSink> sinks,
+                             @Value("${app.reminders.lead-minutes:15}") long leadMinutes,
+                             @Value("${app.reminders.tick-millis:1000}") long tickMillis) {
+        this.taskRepository = taskRepository;
+        this.sinks = sinks.orderedStream().toList();
+        this.lead = Duration.ofMinutes(leadMinutes);
+        this.tickMillis = tickMillis;
+        this.wheel = new TimingWheel<>(tickMillis, System.currentTimeMillis());
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "task-reminders");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 應用啟動完成後分頁載入，載入完成後開始計時
+     * 載入期間收到的變更優先，避免被較舊的分頁資料覆蓋
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        lock.lock();
+        try {
+            loading = true;
+            changedWhileLoading.clear();
+        } finally {
+            lock.unlock();
+        }
+
+        LocalDateTime now = LocalDateTime.now(zone);
+        TaskCursor after = TaskCursor.FIRST;
+        List<Task> batch;
+        do {
+            batch = taskRepository.findRemindablePageAfter(now, after.getStartTime(), after.getId(),
+                PageRequest.of(0, LOAD_BATCH_SIZE));
+            putLoaded(batch);
+            if (!batch.isEmpty()) {
+                Task last = batch.get(batch.size() - 1);
+                after = new TaskCursor(last.getStartTime(), last.getId());
+            }
+        } while (batch.size() == LOAD_BATCH_SIZE);
+
+        Long afterId = 0L;
+        do {
+            batch = taskRepository.findRepeatSeriesPageAfter(now, afterId, PageRequest.of(0, LOAD_BATCH_SIZE));
+            putLoaded(batch);
+            if (!batch.isEmpty()) {
+                afterId = batch.get(batch.size() - 1).getId();
+            }
+        } while (batch.size() == LOAD_BATCH_SIZE);
+
+        lock.lock();
+        try {
+            loading = false;
+            changedWhileLoading.clear();
+            ready = true;
+            logger.info("任務提醒載入完成，共 {} 個待觸發", wheel.size());
+        } finally {
+            lock.unlock();
+        }
+        ticker.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 同步任務寫入，事務提交後執行
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskChange(TaskChangeEvent event) {
+        boolean reload = false;
+        lock.lock();
+        try {
+            if (loading) {
+                changedWhileLoading.add(event.getTaskId());
+            }
+            switch (event.getType()) {
+                case SAVED:
+                    put(event.getTask());
+                    break;
+                case PATCHED:
+                    reload = applyPatch(event);
+                    break;
+                case DELETED:
+                    remove(event.getTaskId());
+                    break;
+                case SERIES_DELETED:
+                    removeSeriesChildren(event.getTaskId(), event.getFrom());
+                    break;
+                default:
+                    break;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (reload) {
+            // 補丁不帶完整內容，按主鍵讀取一次寫入後的任務
+            taskRepository.findById(event.getTaskId()).ifPresent(task -> {
+                lock.lock();
+                try {
+                    put(task);
+                } finally {
+                    lock.unlock();
+                }
+            });
+        }
+    }
+
+    /**
+     * 待觸發的提醒數及累計觸發數，用於監控
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        lock.lock();
+        try {
+            stats.put("ready", ready);
+            stats.put("pending", wheel.size());
+        } finally {
+            lock.unlock();
+        }
+        stats.put("fired", fired.get());
+        stats.put("leadMinutes", lead.toMinutes());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdownNow();
+    }
+
+    /**
+     * 計時線程：取出到期的提醒，釋放鎖後再發送
+     */
+    private void tick() {
+        List<Reminder> due;
+        lock.lock();
+        try {
+            due = wheel.advance(System.currentTimeMillis());
+            for (Reminder reminder : due) {
+                TimingWheel.Entry<Reminder> entry = entriesByTask.get(reminder.getTaskId());
+                if (entry != null && entry.getValue() == reminder) {
+                    removeEntry(reminder.getTaskId());
+                    if (reminder.isSeries()) {
+                        schedule(reminder.getSeries(), reminder.getStartTime());
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.error("任務提醒計時失敗", e);
+            return;
+        } finally {
+            lock.unlock();
+        }
+        for (Reminder reminder : due) {
+            fired.incrementAndGet();
+            for (ReminderSink sink : sinks) {
+                try {
+                    sink.remind(reminder);
+                } catch (RuntimeException e) {
+                    logger.warn("任務提醒發送失敗: {}", reminder.getTaskId(), e);
+                }
+            }
+        }
+    }
+
+    private void putLoaded(List<Task> batch) {
+        lock.lock();
+        try {
+            for (Task task : batch) {
+                if (!changedWhileLoading.contains(task.getId())) {
+                    put(task);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 把部分更新套用到已排定的提醒上
+     * 虛擬系列保存有完整規則，直接套用；其他任務只保存部分欄位，
+     * 改期、重新打開或改名時返回true，由調用方從資料庫重新讀取
+     */
+    private boolean applyPatch(TaskChangeEvent event) {
+        Map<String, Object> changes = event.getPatch().getChanges();
+        TimingWheel.Entry<Reminder> entry = entriesByTask.get(event.getTaskId());
+        if (entry != null && entry.getValue().isSeries()) {
+            Task patched = event.applyPatch(entry.getValue().getSeries());
+            if (patched != null) {
+                put(patched);
+            }
+            return false;
+        }
+        if (changes.containsKey("status")) {
+            Object status = changes.get("status");
+            if (status != Task.Status.PENDING && status != Task.Status.IN_PROGRESS) {
+                remove(event.getTaskId());
+                return false;
+            }
+            if (entry == null) {
+                return true;
+            }
+        }
+        return changes.containsKey("startTime") || (entry != null && changes.containsKey("title"));
+    }
+
+    /**
+     * 按任務當前內容重新排定提醒
+     */
+    private void put(Task task) {
+        remove(task.getId());
+        schedule(task, LocalDateTime.now(zone));
+    }
+
+    /**
+     * 排定任務（或系列中 after 之後第一個實例）的提醒，不需要提醒時不做任何事
+     */
+    private void schedule(Task task, LocalDateTime after) {
+        boolean series = RecurrenceExpander.isVirtualSeries(task);
+        LocalDateTime start;
+        if (series) {
+            start = RecurrenceExpander.nextOccurrenceStart(task, after);
+        } else if (task.getStatus() == Task.Status.PENDING || task.getStatus() == Task.Status.IN_PROGRESS) {
+            start = task.getStartTime().isAfter(after) ? task.getStartTime() : null;
+        } else {
+            start = null;
+        }
+        if (start == null) {
+            return;
+        }
+        LocalDateTime remindAt = start.minus(lead);
+        Reminder reminder = Reminder.of(series ? task.copy() : task, start, remindAt, series);
+        entriesByTask.put(task.getId(), wheel.schedule(remindAt.atZone(zone).toInstant().toEpochMilli(), reminder));
+        if (task.getOriginalTaskId() != null) {
+            childrenBySeries.computeIfAbsent(task.getOriginalTaskId(), k -> new HashSet<>()).add(task.getId());
+        }
+    }
+
+    private void remove(Long taskId) {
+        TimingWheel.Entry<Reminder> entry = removeEntry(taskId);
+        if (entry != null) {
+            wheel.cancel(entry);
+        }
+    }
+
+    private TimingWheel.Entry<Reminder> removeEntry(Long taskId) {
+        TimingWheel.Entry<Reminder> entry = entriesByTask.remove(taskId);
+        if (entry != null) {
+            Long originalTaskId = entry.getValue().getOriginalTaskId();
+            if (originalTaskId != null) {
+                Set<Long> children = childrenBySeries.get(originalTaskId);
+                if (children != null) {
+                    children.remove(taskId);
+                    if (children.isEmpty()) {
+                        childrenBySeries.remove(originalTaskId);
+                    }
+                }
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * 移除系列中從 from 開始（含）的已物化實例的提醒，from為null時移除全部
+     */
+    private void removeSeriesChildren(Long originalTaskId, LocalDateTime from) {
+        Set<Long> children = childrenBySeries.get(originalTaskId);
+        if (children == null) {
+            return;
+        }
+        for (Long childId : new ArrayList<>(children)) {
+            TimingWheel.Entry<Reminder> entry = entriesByTask.get(childId);
+            if (entry != null && (from == null || !entry.getValue().getStartTime().isBefore(from))) {
+                remove(childId);
+            }
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.taskmanager.reminder;
+
+/**
+ * 提醒的發送目標
+ * 由提醒排程器的計時線程調用，實作不應長時間阻塞；需要網絡發送時應自行交給其他線程
+ */
+public interface ReminderSink {
+
+    void remind(Reminder reminder);
+}
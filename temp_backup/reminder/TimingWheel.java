@@ -0,0 +1,235 @@
+package com.taskmanager.reminder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 分層時間輪
+ *
+ * 功能說明：
+ * - 共 LEVELS 層，每層 WHEEL_SIZE 個槽，第 n 層每槽跨度為 WHEEL_SIZE^n 個刻度；
+ *   刻度為1秒時可覆蓋約136年，更遠的到期時間留在最高層，每轉一圈重新檢查一次
+ * - 項目按到期刻度放入「與當前刻度高位相同」的最低一層，槽號取該層的位數
+ * - 每個槽是帶哨兵的雙向鏈表，加入及取消都是 O(1)，取消只需項目本身
+ * - 前進一個刻度時，若低位全部歸零則把上一層對應槽的項目下移（級聯），再取出第0層當前槽的到期項目
+ * - 不保證執行緒安全，由調用方加鎖
+ *
+ * 到期時間向上取整到刻度，項目不會早於到期時間觸發
+ */
+public final class TimingWheel<T> {
+
+    private static final int LEVEL_BITS = 8;
+    private static final int WHEEL_SIZE = 1 << LEVEL_BITS;
+    private static final int SLOT_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 4;
+
+    private final long tickMillis;
+    private final Entry<T>[][] wheels;
+    private final Entry<T> due = Entry.sentinel();
+    private long currentTick;
+    private int size;
+
+    /**
+     * @param tickMillis 刻度長度（毫秒）
+     * @param startMillis 起始時間（epoch 毫秒）
+     */
+    public TimingWheel(long tickMillis, long startMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tickMillis 必須大於0");
+        }
+        this.tickMillis = tickMillis;
+        this.currentTick = Math.floorDiv(startMillis, tickMillis);
+        this.wheels = newWheels();
+        for (Entry<T>[] wheel : wheels) {
+            for (int slot = 0; slot < WHEEL_SIZE; slot++) {
+                wheel[slot] = Entry.sentinel();
+            }
+        }
+    }
+
+    /**
+     * 泛型陣列只能以通配類型創建，各槽只會放入 Entry<T>
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Entry<T>[][] newWheels() {
+        return (Entry<T>[][]) new Entry<?>[LEVELS][WHEEL_SIZE];
+    }
+
+    /**
+     * 加入一個項目，已到期的項目在下次 advance 時返回
+     *
+     * @return 項目句柄，用於取消
+     */
+    public Entry<T> schedule(long deadlineMillis, T value) {
+        Entry<T> entry = new Entry<>(value, deadlineMillis, Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis));
+        place(entry);
+        size++;
+        return entry;
+    }
+
+    /**
+     * 取消項目
+     *
+     * @return 項目仍在等待時返回true，已觸發或已取消時返回false
+     */
+    public boolean cancel(Entry<T> entry) {
+        if (!entry.isScheduled()) {
+            return false;
+        }
+        entry.unlink();
+        size--;
+        return true;
+    }
+
+    /**
+     * 前進到指定時間，返回期間到期的項目，按刻度順序排列
+     */
+    public List<T> advance(long nowMillis) {
+        List<T> expired = new ArrayList<>();
+        long target = Math.floorDiv(nowMillis, tickMillis);
+        drain(due, expired);
+        if (size == 0 && currentTick < target) {
+            currentTick = target;
+            return expired;
+        }
+        while (currentTick < target) {
+            currentTick++;
+            int top = 0;
+            while (top < LEVELS - 1 && (currentTick & ((1L << (LEVEL_BITS * (top + 1))) - 1)) == 0) {
+                top++;
+            }
+            // 由高到低級聯，高層下移的項目可能正好落入低層當前槽
+            for (int level = top; level > 0; level--) {
+                cascade(wheels[level][digit(currentTick, level)]);
+            }
+            drain(wheels[0][digit(currentTick, 0)], expired);
+            drain(due, expired);
+            if (size == 0) {
+                currentTick = target;
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * 等待中的項目數
+     */
+    public int size() {
+        return size;
+    }
+
+    private void place(Entry<T> entry) {
+        if (entry.tick <= currentTick) {
+            entry.linkBefore(due);
+            return;
+        }
+        for (int level = 0; level < LEVELS; level++) {
+            int shift = LEVEL_BITS * (level + 1);
+            if (level == LEVELS - 1 || (entry.tick >>> shift) == (currentTick >>> shift)) {
+                entry.linkBefore(wheels[level][digit(entry.tick, level)]);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 把槽中的項目按當前刻度重新放置；先摘下整條鏈表，重新放回同一槽的項目不會被重複處理
+     */
+    private void cascade(Entry<T> head) {
+        Entry<T> entry = head.detachAll();
+        while (entry != null) {
+            Entry<T> next = entry.next;
+            entry.prev = null;
+            entry.next = null;
+            place(entry);
+            entry = next;
+        }
+    }
+
+    private void drain(Entry<T> head, List<T> expired) {
+        Entry<T> entry = head.detachAll();
+        while (entry != null) {
+            Entry<T> next = entry.next;
+            entry.prev = null;
+            entry.next = null;
+            if (entry.tick <= currentTick) {
+                expired.add(entry.value);
+                size--;
+            } else {
+                place(entry);
+            }
+            entry = next;
+        }
+    }
+
+    private static int digit(long tick, int level) {
+        return (int) ((tick >>> (LEVEL_BITS * level)) & SLOT_MASK);
+    }
+
+    /**
+     * 時間輪中的項目，同時作為取消用的句柄
+     */
+    public static final class Entry<T> {
+        private final T value;
+        private final long deadlineMillis;
+        private final long tick;
+        private Entry<T> prev;
+        private Entry<T> next;
+
+        private Entry(T value, long deadlineMillis, long tick) {
+            this.value = value;
+            this.deadlineMillis = deadlineMillis;
+            this.tick = tick;
+        }
+
+        private static <T> Entry<T> sentinel() {
+            Entry<T> sentinel = new Entry<>(null, 0, 0);
+            sentinel.prev = sentinel;
+            sentinel.next = sentinel;
+            return sentinel;
+        }
+
+        public T getValue() {
+            return value;
+        }
+
+        public long getDeadlineMillis() {
+            return deadlineMillis;
+        }
+
+        /**
+         * 是否仍在時間輪中等待
+         */
+        public boolean isScheduled() {
+            return prev != null;
+        }
+
+        private void linkBefore(Entry<T> head) {
+            prev = head.prev;
+            next = head;
+            head.prev.next = this;
+            head.prev = this;
+        }
+
+        private void unlink() {
+            prev.next = next;
+            next.prev = prev;
+            prev = null;
+            next = null;
+        }
+
+        /**
+         * 摘下哨兵後的整條鏈表，返回第一個項目（末尾的 next 為null），空時返回null
+         */
+        private Entry<T> detachAll() {
+            if (next == this) {
+                return null;
+            }
+            Entry<T> first = next;
+            prev.next = null;
+            prev = this;
+            next = this;
+            return first;
+        }
+    }
+}
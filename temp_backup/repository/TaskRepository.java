@@ -1,54 +1,170 @@
 package com.taskmanager.repository;
 
+import com.taskmanager.dto.CalendarVersion;
+import com.taskmanager.dto.TaskDensityRow;
 import com.taskmanager.model.Task;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+/**
+ * 任務Repository接口
+ * 業務查詢都以 user_id 為首個條件，對應以 user_id 開頭的複合索引，
+ * 單次請求的成本只與該用戶的任務數有關
+ */
 @Repository
 public interface TaskRepository extends JpaRepository<Task, Long> {
 
-    // 根据状态查询任务
-    List<Task> findByStatus(Task.Status status);
-
-    // 根据优先级查询任务
-    List<Task> findByPriority(Task.Priority priority);
-
-    // 根据分类查询任务
-    List<Task> findByCategory(String category);
-
-    // 查询指定时间范围内的任务
-    @Query("SELECT t FROM Task t WHERE t.startTime >= :startDate AND t.startTime <= :endDate ORDER BY t.startTime")
-    List<Task> findTasksInDateRange(@Param("startDate") LocalDateTime startDate,
-            @Param("endDate") LocalDateTime endDate);
-
-        // 查询今天的任务
-    @Query("SELECT t FROM Task t WHERE CAST(t.startTime AS date) = CURRENT_DATE ORDER BY t.startTime")
-    List<Task> findTodayTasks();
-    
-    // 查询本周的任务
-    @Query("SELECT t FROM Task t WHERE t.startTime >= :startOfWeek AND t.startTime <= :endOfWeek ORDER BY t.startTime")
-    List<Task> findThisWeekTasks(@Param("startOfWeek") LocalDateTime startOfWeek, @Param("endOfWeek") LocalDateTime endOfWeek);
-    
-    // 查询本月的任务
-    @Query("SELECT t FROM Task t WHERE t.startTime >= :startOfMonth AND t.startTime <= :endOfMonth ORDER BY t.startTime")
-    List<Task> findThisMonthTasks(@Param("startOfMonth") LocalDateTime startOfMonth, @Param("endOfMonth") LocalDateTime endOfMonth);
-
-    // 根据标题模糊查询
-    List<Task> findByTitleContainingIgnoreCase(String title);
-
-    // 查询即将到期的任务（未来24小时内）
-    @Query("SELECT t FROM Task t WHERE t.startTime BETWEEN CURRENT_TIMESTAMP AND :tomorrow AND t.status != 'COMPLETED' ORDER BY t.startTime")
-    List<Task> findUpcomingTasks(@Param("tomorrow") LocalDateTime tomorrow);
-
-    // 查询过期未完成的任务
-    @Query("SELECT t FROM Task t WHERE t.endTime < CURRENT_TIMESTAMP AND t.status != 'COMPLETED' AND t.status != 'CANCELLED' ORDER BY t.endTime")
-    List<Task> findOverdueTasks();
-    
+    /**
+     * 列表投影：以構造表達式建立不受管的 Task，不載入 user 代理，
+     * 描述只取前 Task.DESCRIPTION_PREVIEW_LENGTH 個字元；用於列表及日曆視圖
+     */
+    String TASK_SUMMARY = "new com.taskmanager.model.Task(t.id, t.title, "
+        + "SUBSTRING(t.description, 1, " + Task.DESCRIPTION_PREVIEW_LENGTH + "), "
+        + "t.startTime, t.endTime, t.priority, t.status, t.category, t.color, t.isAllDay, t.repeatType, "
+        + "t.repeatInterval, t.repeatEndDate, t.originalTaskId, t.repeatMaterialized, t.userId, t.version, "
+        + "t.createdAt, t.updatedAt)";
+
+    // 全表鍵集分頁：按 (startTime, id) 排序，僅供記憶體索引啟動時載入
+    @Query("SELECT t FROM Task t WHERE t.startTime > :afterStart OR (t.startTime = :afterStart AND t.id > :afterId) ORDER BY t.startTime, t.id")
+    List<Task> findPageAfter(@Param("afterStart") LocalDateTime afterStart, @Param("afterId") Long afterId,
+            Pageable pageable);
+
+    // 按用戶鍵集分頁查詢：按 (startTime, id) 排序，取游標位置之後的任務
+    // 調用方通過 Pageable 限制每頁筆數，避免一次載入整個用戶的任務
+    @Query("SELECT " + TASK_SUMMARY + " FROM Task t WHERE t.userId = :userId AND (t.startTime > :afterStart OR (t.startTime = :afterStart AND t.id > :afterId)) ORDER BY t.startTime, t.id")
+    List<Task> findPageByUserAfter(@Param("userId") Long userId,
+            @Param("afterStart") LocalDateTime afterStart, @Param("afterId") Long afterId, Pageable pageable);
+
+    // 流式查詢用戶的任務，按 (startTime, id) 排序，過濾條件為null時不過濾
+    // 以遊標每次取 500 筆，只讀提示避免為每個實體保存髒檢查快照；須在事務內消費並關閉
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT t FROM Task t WHERE t.userId = :userId AND (:status IS NULL OR t.status = :status) AND (:priority IS NULL OR t.priority = :priority) AND (:category IS NULL OR t.category = :category) ORDER BY t.startTime, t.id")
+    Stream<Task> streamByUser(@Param("userId") Long userId, @Param("status") Task.Status status,
+            @Param("priority") Task.Priority priority, @Param("category") String category);
+
+    // 根据ID查询用户自己的任务
+    Optional<Task> findByIdAndUserId(Long id, Long userId);
+
+    // 任務是否存在且屬於該用戶
+    boolean existsByIdAndUserId(Long id, Long userId);
+
+    // 根据状态分頁查询任务
+    @Query("SELECT " + TASK_SUMMARY + " FROM Task t WHERE t.userId = :userId AND t.status = :status AND (t.startTime > :afterStart OR (t.startTime = :afterStart AND t.id > :afterId)) ORDER BY t.startTime, t.id")
+    List<Task> findPageByStatusAfter(@Param("userId") Long userId, @Param("status") Task.Status status,
+            @Param("afterStart") LocalDateTime afterStart, @Param("afterId") Long afterId, Pageable pageable);
+
+    // 根据优先级分頁查询任务
+    @Query("SELECT " + TASK_SUMMARY + " FROM Task t WHERE t.userId = :userId AND t.priority = :priority AND (t.startTime > :afterStart OR (t.startTime = :afterStart AND t.id > :afterId)) ORDER BY t.startTime, t.id")
+    List<Task> findPageByPriorityAfter(@Param("userId") Long userId, @Param("priority") Task.Priority priority,
+            @Param("afterStart") LocalDateTime afterStart, @Param("afterId") Long afterId, Pageable pageable);
+
+    // 根据分类分頁查询任务
+    @Query("SELECT " + TASK_SUMMARY + " FROM Task t WHERE t.userId = :userId AND t.category = :category AND (t.startTime > :afterStart OR (t.startTime = :afterStart AND t.id > :afterId)) ORDER BY t.startTime, t.id")
+    List<Task> findPageByCategoryAfter(@Param("userId") Long userId, @Param("category") String category,
+            @Param("afterStart") LocalDateTime afterStart, @Param("afterId") Long afterId, Pageable pageable);
+
+    // 查询与半開區間 [from, until) 有重疊的任务（包含在窗口之前開始的多日任務）
+    // 沒有結束時間的任務以開始時間作為結束時間；
+    // 兩個分支分別可走 (user_id, end_time) 與 (user_id, start_time, id) 索引
+    @Query("SELECT " + TASK_SUMMARY + " FROM Task t WHERE t.userId = :userId AND ((t.endTime >= :from AND t.startTime < :until) OR (t.startTime >= :from AND t.startTime < :until)) ORDER BY t.startTime, t.id")
+    List<Task> findTasksInDateRange(@Param("userId") Long userId, @Param("from") LocalDateTime from,
+            @Param("until") LocalDateTime until);
+
+    // 日曆窗口的版本：窗口內任務及可能在窗口內展開的虛擬系列的筆數與最大修改時間
+    // 只做聚合，不載入實體，用於生成 ETag
+    @Query("SELECT new com.taskmanager.dto.CalendarVersion(COUNT(t), MAX(t.updatedAt)) FROM Task t WHERE t.userId = :userId AND ((t.endTime >= :from AND t.startTime < :until) OR (t.startTime >= :from AND t.startTime < :until) OR (t.repeatType <> 'NONE' AND t.repeatMaterialized = false AND t.originalTaskId IS NULL AND t.startTime < :until AND (t.repeatEndDate IS NULL OR t.repeatEndDate >= :from)))")
+    CalendarVersion findWindowVersion(@Param("userId") Long userId, @Param("from") LocalDateTime from,
+            @Param("until") LocalDateTime until);
+
+    // 按開始日期統計 [from, until) 內各狀態、各優先級的任務數，單條 GROUP BY 查詢，不載入實體
+    @Query("SELECT new com.taskmanager.dto.TaskDensityRow(cast(t.startTime as LocalDate), t.status, t.priority, COUNT(t)) FROM Task t WHERE t.userId = :userId AND t.startTime >= :from AND t.startTime < :until GROUP BY cast(t.startTime as LocalDate), t.status, t.priority")
+    List<TaskDensityRow> countByDay(@Param("userId") Long userId, @Param("from") LocalDateTime from,
+            @Param("until") LocalDateTime until);
+
+    // 按開始日期及小時統計 [from, until) 內各狀態、各優先級的任務數
+    @Query("SELECT new com.taskmanager.dto.TaskDensityRow(cast(t.startTime as LocalDate), extract(hour from t.startTime), t.status, t.priority, COUNT(t)) FROM Task t WHERE t.userId = :userId AND t.startTime >= :from AND t.startTime < :until GROUP BY cast(t.startTime as LocalDate), extract(hour from t.startTime), t.status, t.priority")
+    List<TaskDensityRow> countByHour(@Param("userId") Long userId, @Param("from") LocalDateTime from,
+            @Param("until") LocalDateTime until);
+
+    // 根据标题、描述或分类模糊分頁查询
+    // 前置萬用字元無法走索引，僅在搜索索引未開啟或未載入完成時使用，掃描範圍限於該用戶
+    @Query("SELECT " + TASK_SUMMARY + " FROM Task t WHERE t.userId = :userId AND (LOWER(t.title) LIKE LOWER(CONCAT('%', :keyword, '%')) OR LOWER(t.description) LIKE LOWER(CONCAT('%', :keyword, '%')) OR LOWER(t.category) LIKE LOWER(CONCAT('%', :keyword, '%'))) AND (t.startTime > :afterStart OR (t.startTime = :afterStart AND t.id > :afterId)) ORDER BY t.startTime, t.id")
+    List<Task> findPageByKeywordAfter(@Param("userId") Long userId, @Param("keyword") String keyword,
+            @Param("afterStart") LocalDateTime afterStart, @Param("afterId") Long afterId, Pageable pageable);
+
+    // 查询即将到期的任务：開始時間落在 [from, until) 內且未完成
+    @Query("SELECT " + TASK_SUMMARY + " FROM Task t WHERE t.userId = :userId AND t.startTime >= :from AND t.startTime < :until AND t.status <> 'COMPLETED' ORDER BY t.startTime")
+    List<Task> findUpcomingTasks(@Param("userId") Long userId, @Param("from") LocalDateTime from,
+            @Param("until") LocalDateTime until);
+
+    // 查询过期未完成的任务：以正向狀態列表配合 (user_id, status, end_time) 索引
+    @Query("SELECT " + TASK_SUMMARY + " FROM Task t WHERE t.userId = :userId AND t.status IN ('PENDING', 'IN_PROGRESS') AND t.endTime < :now ORDER BY t.endTime")
+    List<Task> findOverdueTasks(@Param("userId") Long userId, @Param("now") LocalDateTime now);
+
+    // 過期索引載入：未完成且有結束時間的任務，按 id 鍵集分頁，僅在啟動時調用
+    @Query("SELECT " + TASK_SUMMARY + " FROM Task t WHERE t.status IN ('PENDING', 'IN_PROGRESS') AND t.endTime IS NOT NULL AND t.id > :afterId ORDER BY t.id")
+    List<Task> findOpenWithEndTimePageAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // 查询可能在 [from, until) 內產生實例的虛擬重複系列（只保存規則，實例在查詢時展開）
+    @Query("SELECT t FROM Task t WHERE t.userId = :userId AND t.repeatType <> 'NONE' AND t.repeatMaterialized = false AND t.originalTaskId IS NULL AND t.startTime < :until AND (t.repeatEndDate IS NULL OR t.repeatEndDate >= :from)")
+    List<Task> findRepeatSeriesInRange(@Param("userId") Long userId, @Param("from") LocalDateTime from,
+            @Param("until") LocalDateTime until);
+
+    // 增量同步：用戶在指定變更序號之後寫入的任務，按序號排序
+    @Query("SELECT " + TASK_SUMMARY + " FROM Task t WHERE t.userId = :userId AND t.changeSeq > :since ORDER BY t.changeSeq, t.id")
+    List<Task> findChangedSince(@Param("userId") Long userId, @Param("since") Long since, Pageable pageable);
+
+    // 記錄任務最後一次寫入時的變更序號；不修改版本號及修改時間，也不清空持久化上下文
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Task t SET t.changeSeq = :seq WHERE t.userId = :userId AND t.id IN :ids")
+    int markChanged(@Param("userId") Long userId, @Param("ids") List<Long> ids, @Param("seq") Long seq);
+
+    // 提醒載入：開始時間不早於 from 的未完成任務，按 (startTime, id) 鍵集分頁，僅在啟動時調用
+    @Query("SELECT " + TASK_SUMMARY + " FROM Task t WHERE t.startTime >= :from AND t.status IN ('PENDING', 'IN_PROGRESS') AND (t.startTime > :afterStart OR (t.startTime = :afterStart AND t.id > :afterId)) ORDER BY t.startTime, t.id")
+    List<Task> findRemindablePageAfter(@Param("from") LocalDateTime from,
+            @Param("afterStart") LocalDateTime afterStart, @Param("afterId") Long afterId, Pageable pageable);
+
+    // 提醒載入：在 from 之後仍可能產生實例的虛擬重複系列，按 id 鍵集分頁，僅在啟動時調用
+    @Query("SELECT " + TASK_SUMMARY + " FROM Task t WHERE t.repeatType <> 'NONE' AND t.repeatMaterialized = false AND t.originalTaskId IS NULL AND (t.repeatEndDate IS NULL OR t.repeatEndDate > :from) AND t.id > :afterId ORDER BY t.id")
+    List<Task> findRepeatSeriesPageAfter(@Param("from") LocalDateTime from, @Param("afterId") Long afterId,
+            Pageable pageable);
+
     // 根据原始任务ID查询重复任务
-    List<Task> findByOriginalTaskId(Long originalTaskId);
-}
\ No newline at end of file
+    List<Task> findByOriginalTaskIdAndUserId(Long originalTaskId, Long userId);
+
+    // 批量標記任務為完成，單條語句完成，返回更新的行數（不屬於該用戶的ID被忽略）
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Task t SET t.status = 'COMPLETED', t.version = t.version + 1, t.updatedAt = :now WHERE t.userId = :userId AND t.id IN :ids")
+    int completeAll(@Param("userId") Long userId, @Param("ids") List<Long> ids, @Param("now") LocalDateTime now);
+
+    // 按ID刪除用戶自己的任務，返回刪除的行數（0表示任務不存在或不屬於該用戶）
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Task t WHERE t.id = :id AND t.userId = :userId")
+    int deleteTaskById(@Param("id") Long id, @Param("userId") Long userId);
+
+    // 刪除整個系列已物化的重複任務，單條語句完成
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Task t WHERE t.originalTaskId = :originalTaskId AND t.userId = :userId")
+    int deleteSeries(@Param("originalTaskId") Long originalTaskId, @Param("userId") Long userId);
+
+    // 刪除系列中從指定時間開始（含）的已物化重複任務，單條語句完成
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Task t WHERE t.originalTaskId = :originalTaskId AND t.userId = :userId AND t.startTime >= :from")
+    int deleteSeriesFrom(@Param("originalTaskId") Long originalTaskId, @Param("userId") Long userId,
+            @Param("from") LocalDateTime from);
+}
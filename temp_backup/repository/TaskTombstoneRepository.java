@@ -0,0 +1,28 @@
+package com.taskmanager.repository;
+
+import com.taskmanager.model.TaskTombstone;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 任務刪除記錄Repository接口
+ */
+@Repository
+public interface TaskTombstoneRepository extends JpaRepository<TaskTombstone, Long> {
+
+    // 用戶在指定變更序號之後的刪除記錄，按序號排序；調用方以分頁限制讀取的筆數
+    @Query("SELECT t FROM TaskTombstone t WHERE t.userId = :userId AND t.changeSeq > :since ORDER BY t.changeSeq, t.id")
+    List<TaskTombstone> findByUserSince(@Param("userId") Long userId, @Param("since") Long since, Pageable pageable);
+
+    // 刪除早於指定時間的刪除記錄
+    @Modifying
+    @Query("DELETE FROM TaskTombstone t WHERE t.deletedAt < :cutoff")
+    int deleteOlderThan(@Param("cutoff") LocalDateTime cutoff);
+}
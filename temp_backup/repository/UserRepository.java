@@ -2,10 +2,12 @@ package com.taskmanager.repository;
 
 import com.taskmanager.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 /**
@@ -40,4 +42,42 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * 檢查郵箱是否存在
      */
     boolean existsByEmail(String email);
+
+    /**
+     * 遞增用戶的任務變更序號
+     * 更新會鎖住該用戶的資料列直到事務結束，同一用戶的寫入事務按序號順序提交
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE User u SET u.changeSeq = u.changeSeq + 1 WHERE u.id = :userId")
+    int incrementChangeSeq(@Param("userId") Long userId);
+
+    /**
+     * 寫入最後登入時間，只在新時間較晚時生效
+     */
+    @Modifying
+    @Query("UPDATE User u SET u.lastLoginAt = :lastLoginAt WHERE u.id = :userId " +
+           "AND (u.lastLoginAt IS NULL OR u.lastLoginAt < :lastLoginAt)")
+    int updateLastLoginAt(@Param("userId") Long userId, @Param("lastLoginAt") LocalDateTime lastLoginAt);
+
+    /**
+     * 讀取用戶當前的任務變更序號
+     */
+    @Query("SELECT u.changeSeq FROM User u WHERE u.id = :userId")
+    Optional<Long> findChangeSeq(@Param("userId") Long userId);
+
+    /**
+     * 讀取用戶已清理的刪除記錄中最大的變更序號
+     */
+    @Query("SELECT u.tombstonesPurgedSeq FROM User u WHERE u.id = :userId")
+    Optional<Long> findTombstonesPurgedSeq(@Param("userId") Long userId);
+
+    /**
+     * 在清理刪除記錄之前，把即將刪除的記錄中最大的變更序號記到各用戶上；只會增大
+     */
+    @Modifying
+    @Query("UPDATE User u SET u.tombstonesPurgedSeq = " +
+           "(SELECT MAX(t.changeSeq) FROM TaskTombstone t WHERE t.userId = u.id AND t.deletedAt < :cutoff) " +
+           "WHERE u.tombstonesPurgedSeq < " +
+           "(SELECT MAX(t.changeSeq) FROM TaskTombstone t WHERE t.userId = u.id AND t.deletedAt < :cutoff)")
+    int markTombstonesPurged(@Param("cutoff") LocalDateTime cutoff);
 }
@@ -0,0 +1,249 @@
+package com.taskmanager.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 最後登入時間的延遲寫入緩衝
+ *
+ * 功能說明：
+ * - 登入時只把時間記入記憶體，同一用戶多次登入合併為最新的一次，不在認證路徑上寫資料庫
+ * - 計時線程每 flush-millis 毫秒把緩衝中的時間以JDBC批次 UPDATE 寫出，應用關閉時再寫出一次
+ * - 緩衝最多保存 max-pending 個用戶，已滿時新用戶的登入直接寫入資料庫並提前觸發一次寫出
+ * - UPDATE 只在新時間較晚時生效，直接寫入與批次寫出交錯時不會以舊時間覆蓋新時間
+ * - 寫出失敗的時間放回緩衝，下次重試；進程異常退出時最多丟失一個寫出週期內的登入時間
+ *
+ * 通過 app.last-login.write-behind=false 關閉，關閉後登入時同步寫入
+ */
+@Component
+@ConditionalOnProperty(name = "app.last-login.write-behind", havingValue = "true", matchIfMissing = true)
+public class LastLoginWriteBehind {
+
+    private static final Logger logger = LoggerFactory.getLogger(LastLoginWriteBehind.class);
+
+    private static final String UPDATE_SQL =
+        "UPDATE users SET last_login_at = ? WHERE id = ? AND (last_login_at IS NULL OR last_login_at < ?)";
+
+    /**
+     * 待寫出的登入時間及該用戶最早一次未寫出登入的記錄時刻（用於計算寫出延遲）
+     */
+    private record Pending(LocalDateTime lastLoginAt, long recordedAtMillis) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long flushMillis;
+    private final int maxPending;
+    private final int batchSize;
+
+    private final ConcurrentHashMap<Long, Pending> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ScheduledExecutorService flusher;
+
+    private final AtomicLong recorded = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong flushed = new AtomicLong();
+    private final AtomicLong writtenThrough = new AtomicLong();
+    private final AtomicLong failedFlushes = new AtomicLong();
+    private volatile long lastFlushLagMillis;
+    private volatile long maxFlushLagMillis;
+    private volatile long lastFlushDurationMillis;
+    private volatile LocalDateTime lastFlushAt;
+
+    public LastLoginWriteBehind(JdbcTemplate jdbcTemplate,
+                                @Value("${app.last-login.flush-millis:5000}") long flushMillis,
+                                @Value("${app.last-login.max-pending:10000}") int maxPending,
+                                @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.flushMillis = flushMillis;
+        this.maxPending = maxPending;
+        this.batchSize = Math.max(1, batchSize);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "last-login-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 記錄一次成功登入
+     */
+    public void record(Long userId, LocalDateTime lastLoginAt) {
+        recorded.incrementAndGet();
+        // 緩衝已滿時不再接收新用戶，已在緩衝中的用戶仍然合併
+        if (pending.size() >= maxPending && !pending.containsKey(userId)) {
+            writeThrough(userId, lastLoginAt);
+            requestFlush();
+            return;
+        }
+        long now = System.currentTimeMillis();
+        pending.merge(userId, new Pending(lastLoginAt, now), (old, latest) -> {
+            coalesced.incrementAndGet();
+            LocalDateTime newer = latest.lastLoginAt().isAfter(old.lastLoginAt())
+                ? latest.lastLoginAt() : old.lastLoginAt();
+            return new Pending(newer, old.recordedAtMillis());
+        });
+    }
+
+    /**
+     * 把緩衝中的登入時間全部寫出
+     *
+     * @return 寫出的用戶數
+     */
+    public int flush() {
+        flushLock.lock();
+        try {
+            flushRequested.set(false);
+            if (pending.isEmpty()) {
+                return 0;
+            }
+            long start = System.currentTimeMillis();
+            List<Long> userIds = new ArrayList<>(pending.keySet());
+            Map<Long, Pending> drained = new LinkedHashMap<>();
+            long oldest = start;
+            for (Long userId : userIds) {
+                Pending entry = pending.remove(userId);
+                if (entry != null) {
+                    drained.put(userId, entry);
+                    oldest = Math.min(oldest, entry.recordedAtMillis());
+                }
+            }
+
+            List<Object[]> batch = new ArrayList<>(Math.min(batchSize, drained.size()));
+            try {
+                for (Map.Entry<Long, Pending> entry : drained.entrySet()) {
+                    Timestamp at = Timestamp.valueOf(entry.getValue().lastLoginAt());
+                    batch.add(new Object[] {at, entry.getKey(), at});
+                    if (batch.size() == batchSize) {
+                        jdbcTemplate.batchUpdate(UPDATE_SQL, batch);
+                        batch.clear();
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    jdbcTemplate.batchUpdate(UPDATE_SQL, batch);
+                }
+            } catch (RuntimeException e) {
+                failedFlushes.incrementAndGet();
+                requeue(drained);
+                throw e;
+            }
+
+            long end = System.currentTimeMillis();
+            flushed.addAndGet(drained.size());
+            lastFlushLagMillis = end - oldest;
+            maxFlushLagMillis = Math.max(maxFlushLagMillis, lastFlushLagMillis);
+            lastFlushDurationMillis = end - start;
+            lastFlushAt = LocalDateTime.now();
+            return drained.size();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 待寫出數、合併及寫出統計，以及寫出延遲（最早一次未寫出的登入到寫出完成的毫秒數）
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pending", pending.size());
+        stats.put("maxPending", maxPending);
+        stats.put("oldestPendingMillis", oldestPendingMillis());
+        stats.put("recorded", recorded.get());
+        stats.put("coalesced", coalesced.get());
+        stats.put("flushed", flushed.get());
+        stats.put("writtenThrough", writtenThrough.get());
+        stats.put("failedFlushes", failedFlushes.get());
+        stats.put("lastFlushLagMillis", lastFlushLagMillis);
+        stats.put("maxFlushLagMillis", maxFlushLagMillis);
+        stats.put("lastFlushDurationMillis", lastFlushDurationMillis);
+        stats.put("lastFlushAt", lastFlushAt);
+        stats.put("flushMillis", flushMillis);
+        return stats;
+    }
+
+    /**
+     * 停止計時線程後寫出剩餘的登入時間；資料源在本元件之後才關閉
+     */
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(flushMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        int count = flush();
+        logger.info("關閉前寫出 {} 個用戶的最後登入時間", count);
+    }
+
+    private void writeThrough(Long userId, LocalDateTime lastLoginAt) {
+        Timestamp at = Timestamp.valueOf(lastLoginAt);
+        jdbcTemplate.update(UPDATE_SQL, at, userId, at);
+        writtenThrough.incrementAndGet();
+    }
+
+    /**
+     * 緩衝已滿時提前寫出，同一時間只排一次
+     */
+    private void requestFlush() {
+        if (flushRequested.compareAndSet(false, true)) {
+            try {
+                flusher.execute(this::flushQuietly);
+            } catch (RuntimeException e) {
+                flushRequested.set(false);
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            logger.warn("寫出最後登入時間失敗，{} 個用戶待下次重試", pending.size(), e);
+        }
+    }
+
+    /**
+     * 寫出失敗的時間放回緩衝，與期間新記錄的時間合併，保留較新的時間及較早的記錄時刻
+     */
+    private void requeue(Map<Long, Pending> drained) {
+        drained.forEach((userId, entry) -> pending.merge(userId, entry, (current, failed) -> new Pending(
+            current.lastLoginAt().isAfter(failed.lastLoginAt()) ? current.lastLoginAt() : failed.lastLoginAt(),
+            Math.min(current.recordedAtMillis(), failed.recordedAtMillis()))));
+    }
+
+    private long oldestPendingMillis() {
+        long now = System.currentTimeMillis();
+        long oldest = now;
+        for (Pending entry : pending.values()) {
+            oldest = Math.min(oldest, entry.recordedAtMillis());
+        }
+        return now - oldest;
+    }
+}
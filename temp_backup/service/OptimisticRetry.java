@@ -0,0 +1,84 @@
+package com.taskmanager.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * 樂觀鎖重試
+ *
+ * 功能說明：
+ * - 每次嘗試在獨立事務中執行，版本衝突在提交時拋出後整個事務回滾，下次嘗試重新讀取最新資料
+ * - 只用於可交換的寫入（登入時間、用戶資料），結果不依賴併發寫入的先後次序
+ * - 任務的整體覆蓋不可交換，必須帶版本號，不經過重試
+ * - 客戶端帶版本號的寫入不重試，衝突直接以 409 返回，由客戶端決定如何合併
+ * - 已處於外層事務中時（例如批量操作）只執行一次，衝突由外層事務統一回滾
+ */
+@Component
+public class OptimisticRetry {
+
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+    private final long backoffMillis;
+
+    public OptimisticRetry(PlatformTransactionManager transactionManager,
+                           @Value("${app.optimistic-retry.max-attempts:3}") int maxAttempts,
+                           @Value("${app.optimistic-retry.backoff-millis:20}") long backoffMillis) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMillis = Math.max(0, backoffMillis);
+    }
+
+    /**
+     * 執行可交換的寫入，版本衝突時重試
+     *
+     * @throws OptimisticLockingFailureException 重試次數用盡後仍然衝突時
+     */
+    public <T> T execute(Supplier<T> action) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return action.get();
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> action.get());
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                backoff(attempt);
+            }
+        }
+    }
+
+    /**
+     * 在事務中執行一次，不重試；用於帶版本號、衝突須交給客戶端處理的寫入
+     */
+    public <T> T executeOnce(Supplier<T> action) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return action.get();
+        }
+        return transactionTemplate.execute(status -> action.get());
+    }
+
+    /**
+     * 隨機化的線性退避，避免衝突的請求同時重試再次相撞
+     */
+    private void backoff(int attempt) {
+        if (backoffMillis == 0) {
+            return;
+        }
+        long delay = ThreadLocalRandom.current().nextLong(backoffMillis * attempt + 1);
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("重試等待被中斷", e);
+        }
+    }
+}
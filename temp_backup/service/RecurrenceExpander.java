@@ -0,0 +1,176 @@
+package com.taskmanager.service;
+
+import com.taskmanager.model.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 重複任務展開器
+ *
+ * 功能說明：
+ * - 重複系列只在原始任務上保存規則（repeatType, repeatInterval, repeatEndDate）
+ * - 查詢時按需在請求的時間窗口內展開出虛擬實例，不寫入資料庫
+ * - 直接跳到窗口附近的第一個實例，展開成本只與窗口內的實例數有關
+ *
+ * 第0個實例即原始任務本身，展開結果從第1個實例開始；
+ * 與原先物化方式一致，每個系列最多 MAX_OCCURRENCES 個實例
+ */
+public final class RecurrenceExpander {
+
+    /**
+     * 每個系列的實例上限（含原始任務），防止無限重複
+     */
+    public static final int MAX_OCCURRENCES = 1000;
+
+    private RecurrenceExpander() {
+    }
+
+    /**
+     * 是否為按需展開的虛擬重複系列
+     * 已物化（實例另存為資料列）的舊系列及系列中的實例都不展開
+     */
+    public static boolean isVirtualSeries(Task task) {
+        return task.getRepeatType() != null
+            && task.getRepeatType() != Task.RepeatType.NONE
+            && task.getOriginalTaskId() == null
+            && Boolean.FALSE.equals(task.getRepeatMaterialized())
+            && task.getRepeatInterval() != null
+            && task.getRepeatInterval() > 0;
+    }
+
+    /**
+     * 展開系列與半開區間 [from, until) 有重疊的實例，按開始時間排序
+     */
+    public static List<Task> expand(Task series, LocalDateTime from, LocalDateTime until) {
+        List<Task> occurrences = new ArrayList<>();
+        if (!isVirtualSeries(series)) {
+            return occurrences;
+        }
+
+        ChronoUnit unit = unitOf(series.getRepeatType());
+        long interval = series.getRepeatInterval();
+        Duration duration = durationOf(series);
+
+        // 跳到結束時間可能落在窗口內的第一個實例附近
+        long n = 1;
+        LocalDateTime earliestStart = from.minus(duration);
+        if (earliestStart.isAfter(series.getStartTime())) {
+            n = Math.max(1, unit.between(series.getStartTime(), earliestStart) / interval);
+        }
+
+        for (; n < MAX_OCCURRENCES; n++) {
+            LocalDateTime start = series.getStartTime().plus(n * interval, unit);
+            if (!start.isBefore(until) || isPastSeriesEnd(series, start)) {
+                break;
+            }
+            if (!start.plus(duration).isBefore(from)) {
+                occurrences.add(occurrence(series, start, duration));
+            }
+        }
+        return occurrences;
+    }
+
+    /**
+     * 展開整個系列的所有實例（不含原始任務）
+     */
+    public static List<Task> expandAll(Task series) {
+        return expand(series, series.getStartTime(), LocalDateTime.MAX);
+    }
+
+    /**
+     * 系列展開後的實例數（不含原始任務），只計算開始時間，不生成實例
+     */
+    public static int countOccurrences(Task series) {
+        if (!isVirtualSeries(series)) {
+            return 0;
+        }
+        ChronoUnit unit = unitOf(series.getRepeatType());
+        long interval = series.getRepeatInterval();
+        int count = 0;
+        for (long n = 1; n < MAX_OCCURRENCES; n++) {
+            if (isPastSeriesEnd(series, series.getStartTime().plus(n * interval, unit))) {
+                break;
+            }
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 系列中開始時間晚於 after 的第一個實例（含原始任務本身）的開始時間，沒有時返回null
+     * 直接跳到 after 附近，不逐個展開
+     */
+    public static LocalDateTime nextOccurrenceStart(Task series, LocalDateTime after) {
+        if (!isVirtualSeries(series)) {
+            return null;
+        }
+        if (series.getStartTime().isAfter(after)) {
+            return series.getStartTime();
+        }
+
+        ChronoUnit unit = unitOf(series.getRepeatType());
+        long interval = series.getRepeatInterval();
+        long n = Math.max(1, unit.between(series.getStartTime(), after) / interval);
+        for (; n < MAX_OCCURRENCES; n++) {
+            LocalDateTime start = series.getStartTime().plus(n * interval, unit);
+            if (isPastSeriesEnd(series, start)) {
+                return null;
+            }
+            if (start.isAfter(after)) {
+                return start;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 實例的開始時間必須早於系列結束日期，null表示不限結束日期
+     */
+    private static boolean isPastSeriesEnd(Task series, LocalDateTime start) {
+        return series.getRepeatEndDate() != null && !start.isBefore(series.getRepeatEndDate());
+    }
+
+    /**
+     * 生成虛擬實例
+     * 保持原始任務的持續時間，實例本身不再重複，並以 originalTaskId 指向系列
+     */
+    private static Task occurrence(Task series, LocalDateTime start, Duration duration) {
+        Task occurrence = series.copy();
+        occurrence.setId(null);
+        occurrence.setVersion(null);
+        occurrence.setStartTime(start);
+        occurrence.setEndTime(series.getEndTime() != null ? start.plus(duration) : null);
+        occurrence.setStatus(Task.Status.PENDING);
+        occurrence.setRepeatType(Task.RepeatType.NONE);
+        occurrence.setRepeatInterval(1);
+        occurrence.setRepeatEndDate(null);
+        occurrence.setOriginalTaskId(series.getId());
+        return occurrence;
+    }
+
+    private static Duration durationOf(Task series) {
+        if (series.getEndTime() == null || series.getEndTime().isBefore(series.getStartTime())) {
+            return Duration.ZERO;
+        }
+        return Duration.between(series.getStartTime(), series.getEndTime());
+    }
+
+    private static ChronoUnit unitOf(Task.RepeatType repeatType) {
+        switch (repeatType) {
+            case DAILY:
+                return ChronoUnit.DAYS;
+            case WEEKLY:
+                return ChronoUnit.WEEKS;
+            case MONTHLY:
+                return ChronoUnit.MONTHS;
+            case YEARLY:
+                return ChronoUnit.YEARS;
+            default:
+                throw new IllegalArgumentException("不支援的重複類型: " + repeatType);
+        }
+    }
+}
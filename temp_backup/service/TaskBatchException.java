@@ -0,0 +1,28 @@
+package com.taskmanager.service;
+
+/**
+ * 批量操作失敗
+ * 由 TaskService.applyBatch 拋出，使整批操作回滾；
+ * 攜帶失敗操作在請求中的下標及對應單個接口的響應狀態碼
+ */
+public class TaskBatchException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int index;
+    private final int status;
+
+    public TaskBatchException(int index, int status, String message) {
+        super(message);
+        this.index = index;
+        this.status = status;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,48 @@
+package com.taskmanager.service;
+
+import com.taskmanager.model.Task;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * 任務批量寫入服務
+ *
+ * 功能說明：
+ * - 在單一事務內持久化大量任務
+ * - 配合序列預分配主鍵及 hibernate.jdbc.batch_size，INSERT 以JDBC批次送出
+ * - 每個批次後 flush 並清空持久化上下文，記憶體佔用不隨任務數增長
+ */
+@Service
+public class TaskBulkWriter {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    /**
+     * 批量插入新任務
+     *
+     * @param tasks 待插入的任務，插入後會回填ID
+     * @return 已插入的任務（與傳入的為同一批物件）
+     */
+    @Transactional
+    public List<Task> insertAll(List<Task> tasks) {
+        for (int i = 0; i < tasks.size(); i++) {
+            entityManager.persist(tasks.get(i));
+            if ((i + 1) % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return tasks;
+    }
+}
@@ -0,0 +1,124 @@
+package com.taskmanager.service;
+
+import com.taskmanager.event.TaskChangeEvent;
+import com.taskmanager.model.TaskTombstone;
+import com.taskmanager.repository.TaskRepository;
+import com.taskmanager.repository.TaskTombstoneRepository;
+import com.taskmanager.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 任務變更記錄（增量同步）
+ *
+ * 功能說明：
+ * - 在寫入事務內收集 TaskChangeEvent，事務提交前為每個涉及的用戶遞增一次變更序號
+ * - 保存及部分更新：把任務的 change_seq 批量更新為該序號
+ * - 刪除及系列刪除：寫入一筆刪除記錄
+ * - 與任務寫入在同一事務內完成，回滾時序號與記錄一併回滾；
+ *   遞增序號會鎖住用戶資料列，同一用戶的寫入事務按序號順序提交
+ */
+@Component
+public class TaskChangeLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskChangeLog.class);
+
+    /**
+     * 單條 UPDATE 語句 IN 列表的最大長度
+     */
+    private static final int UPDATE_CHUNK_SIZE = 500;
+
+    private final TaskRepository taskRepository;
+    private final UserRepository userRepository;
+    private final TaskTombstoneRepository tombstoneRepository;
+
+    public TaskChangeLog(TaskRepository taskRepository, UserRepository userRepository,
+                         TaskTombstoneRepository tombstoneRepository) {
+        this.taskRepository = taskRepository;
+        this.userRepository = userRepository;
+        this.tombstoneRepository = tombstoneRepository;
+    }
+
+    /**
+     * 在發佈事件的事務內同步調用，只收集，提交前統一寫入
+     */
+    @EventListener
+    public void onTaskChange(TaskChangeEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            logger.warn("任務變更不在事務內，未記錄增量同步序號: {}", event.getTaskId());
+            return;
+        }
+        PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingChanges();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.add(event);
+    }
+
+    /**
+     * 一個事務內待記錄的變更，按用戶分組
+     */
+    private final class PendingChanges implements TransactionSynchronization {
+        final Map<Long, List<TaskChangeEvent>> byUser = new LinkedHashMap<>();
+
+        void add(TaskChangeEvent event) {
+            byUser.computeIfAbsent(event.getUserId(), id -> new ArrayList<>()).add(event);
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            LocalDateTime now = LocalDateTime.now();
+            byUser.forEach((userId, events) -> record(userId, events, now));
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(TaskChangeLog.this);
+        }
+
+        private void record(Long userId, List<TaskChangeEvent> events, LocalDateTime now) {
+            if (userRepository.incrementChangeSeq(userId) == 0) {
+                return;
+            }
+            Long seq = userRepository.findChangeSeq(userId).orElseThrow();
+            Set<Long> changedIds = new LinkedHashSet<>();
+            List<TaskTombstone> tombstones = new ArrayList<>();
+            for (TaskChangeEvent event : events) {
+                switch (event.getType()) {
+                    case SAVED:
+                    case PATCHED:
+                        changedIds.add(event.getTaskId());
+                        break;
+                    case DELETED:
+                        changedIds.remove(event.getTaskId());
+                        tombstones.add(new TaskTombstone(userId, event.getTaskId(), false, null, seq, now));
+                        break;
+                    case SERIES_DELETED:
+                        tombstones.add(new TaskTombstone(userId, event.getTaskId(), true, event.getFrom(), seq, now));
+                        break;
+                    default:
+                        break;
+                }
+            }
+            List<Long> ids = new ArrayList<>(changedIds);
+            for (int i = 0; i < ids.size(); i += UPDATE_CHUNK_SIZE) {
+                taskRepository.markChanged(userId, ids.subList(i, Math.min(i + UPDATE_CHUNK_SIZE, ids.size())), seq);
+            }
+            tombstoneRepository.saveAll(tombstones);
+        }
+    }
+}
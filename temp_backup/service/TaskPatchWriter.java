@@ -0,0 +1,71 @@
+package com.taskmanager.service;
+
+import com.taskmanager.dto.TaskPatch;
+import com.taskmanager.model.Task;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 任務部分更新服務
+ *
+ * 功能說明：
+ * - 按補丁中出現的欄位動態生成單條 UPDATE 語句，不先讀取整行
+ * - 只寫入變更的欄位，同時遞增版本號並更新修改時間
+ * - 補丁帶版本號時把版本加入 WHERE 條件，併發修改不會被覆蓋
+ */
+@Service
+public class TaskPatchWriter {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * 寫入補丁
+     *
+     * @param userId 用戶ID
+     * @param id 任務ID
+     * @param patch 非空的補丁
+     * @param updatedAt 修改時間
+     * @return 更新的行數，0表示任務不存在、不屬於該用戶或版本不符
+     */
+    @Transactional
+    public int apply(Long userId, Long id, TaskPatch patch, LocalDateTime updatedAt) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Task> update = cb.createCriteriaUpdate(Task.class);
+        Root<Task> task = update.from(Task.class);
+
+        for (Map.Entry<String, Object> change : patch.getChanges().entrySet()) {
+            Path<Object> field = task.get(change.getKey());
+            if (change.getValue() != null) {
+                update.set(field, change.getValue());
+            } else {
+                update.<Object>set(field, cb.nullLiteral(field.getJavaType()));
+            }
+        }
+        Path<Long> version = task.get("version");
+        update.set(version, cb.sum(version, 1L));
+        update.set(task.<LocalDateTime>get("updatedAt"), updatedAt);
+
+        List<Predicate> conditions = new ArrayList<>();
+        conditions.add(cb.equal(task.get("id"), id));
+        conditions.add(cb.equal(task.get("userId"), userId));
+        if (patch.getVersion() != null) {
+            conditions.add(cb.equal(version, patch.getVersion()));
+        }
+        update.where(conditions.toArray(new Predicate[0]));
+
+        return entityManager.createQuery(update).executeUpdate();
+    }
+}
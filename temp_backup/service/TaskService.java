@@ -1,41 +1,187 @@
 package com.taskmanager.service;
 
+import com.taskmanager.cache.TaskCache;
+import com.taskmanager.dto.CalendarVersion;
+import com.taskmanager.dto.SearchCursor;
+import com.taskmanager.dto.TaskBatchOperation;
+import com.taskmanager.dto.TaskBatchResult;
+import com.taskmanager.dto.TaskChanges;
+import com.taskmanager.dto.TaskCursor;
+import com.taskmanager.dto.TaskDensity;
+import com.taskmanager.dto.TaskDensityRow;
+import com.taskmanager.dto.TaskPage;
+import com.taskmanager.dto.TaskPatch;
+import com.taskmanager.event.TaskChangeEvent;
+import com.taskmanager.index.OverdueTaskIndex;
+import com.taskmanager.index.TaskIntervalIndex;
+import com.taskmanager.index.TaskSearchIndex;
 import com.taskmanager.model.Task;
+import com.taskmanager.model.TaskTombstone;
 import com.taskmanager.repository.TaskRepository;
+import com.taskmanager.repository.TaskTombstoneRepository;
+import com.taskmanager.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.TreeMap;
 
+/**
+ * 任務服務
+ * 所有方法以 userId 為第一個參數，只讀寫該用戶自己的任務
+ */
 @Service
+@Transactional
 public class TaskService {
     
+    /**
+     * 列表接口的預設及最大每頁筆數
+     */
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 500;
+    
+    /**
+     * 批量操作單次最多處理的任務數
+     */
+    public static final int MAX_BULK_SIZE = 1000;
+    
+    /**
+     * 密度統計的最大窗口天數，足夠覆蓋一整年的概覽
+     */
+    public static final int MAX_DENSITY_DAYS = 366;
+    
+    /**
+     * 增量同步單次最多返回的變更數，超出時要求客戶端重新完整載入
+     */
+    public static final int MAX_SYNC_CHANGES = 1000;
+    
     @Autowired
     private TaskRepository taskRepository;
     
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private TaskTombstoneRepository tombstoneRepository;
+    
+    @Autowired
+    private TaskBulkWriter taskBulkWriter;
+    
+    @Autowired
+    private TaskPatchWriter taskPatchWriter;
+    
+    @Autowired
+    private TaskStreamReader taskStreamReader;
+    
+    @Autowired
+    private TaskCache taskCache;
+    
+    @Autowired
+    private OptimisticRetry optimisticRetry;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    /**
+     * 可選的記憶體區間索引，僅在 app.task-index.enabled=true 時存在
+     */
+    @Autowired(required = false)
+    private TaskIntervalIndex intervalIndex;
+    
+    @Autowired(required = false)
+    private TaskSearchIndex searchIndex;
+    
+    /**
+     * 可選的過期任務索引，僅在 app.overdue-index.enabled=true 時存在
+     */
+    @Autowired(required = false)
+    private OverdueTaskIndex overdueIndex;
+    
     // 创建任务
-    public Task createTask(Task task) {
-        return taskRepository.save(task);
+    public Task createTask(Long userId, Task task) {
+        assignOwner(userId, task);
+        return saveAndPublish(task);
     }
     
-    // 获取所有任务
-    public List<Task> getAllTasks() {
-        return taskRepository.findAll();
+    /**
+     * 批量创建任务
+     * 通過 TaskBulkWriter 以JDBC批次插入，適用於匯入等大量寫入
+     */
+    public List<Task> createTasks(Long userId, List<Task> tasks) {
+        for (Task task : tasks) {
+            assignOwner(userId, task);
+        }
+        List<Task> created = taskBulkWriter.insertAll(tasks);
+        for (Task task : created) {
+            eventPublisher.publishEvent(TaskChangeEvent.saved(task));
+        }
+        return created;
     }
     
-    // 根据ID获取任务
-    public Optional<Task> getTaskById(Long id) {
-        return taskRepository.findById(id);
+    // 分頁获取所有任务
+    @Transactional(readOnly = true)
+    public TaskPage getAllTasks(Long userId, String cursor, int size) {
+        TaskCursor after = TaskCursor.decode(cursor);
+        return TaskPage.of(taskRepository.findPageByUserAfter(
+            userId, after.getStartTime(), after.getId(), pageOf(size)), clampPageSize(size));
     }
     
-    // 更新任务
-    public Task updateTask(Long id, Task taskDetails) {
-        Optional<Task> optionalTask = taskRepository.findById(id);
+    /**
+     * 流式获取用户的任务，按 (startTime, id) 順序逐筆交給 consumer
+     * 整個列表不會一次載入記憶體，適用於大量任務的匯出及流式響應
+     */
+    @Transactional(readOnly = true)
+    public void streamTasks(Long userId, Task.Status status, Task.Priority priority, String category,
+                            Consumer<Task> consumer) {
+        taskStreamReader.forEach(userId, status, priority, category, consumer);
+    }
+    
+    // 根据ID获取任务，經快取讀取，並核對任務歸屬
+    @Transactional(readOnly = true)
+    public Optional<Task> getTaskById(Long userId, Long id) {
+        return Optional.ofNullable(taskCache.getTask(id,
+                () -> taskRepository.findByIdAndUserId(id, userId).map(Task::copy).orElse(null)))
+            .filter(task -> userId.equals(task.getUserId()));
+    }
+    
+    /**
+     * 更新任务（整體覆蓋）
+     * 整體覆蓋不可交換，衝突後重新套用即是覆蓋他人的修改，因此 taskDetails 必須帶版本號，
+     * 與資料庫不一致時拋出樂觀鎖異常，只執行一次，不重試
+     *
+     * @throws IllegalArgumentException 未帶版本號時
+     * @throws ObjectOptimisticLockingFailureException 版本號與資料庫不一致時
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Task updateTask(Long userId, Long id, Task taskDetails) {
+        if (taskDetails.getVersion() == null) {
+            throw new IllegalArgumentException("整體覆蓋必須帶版本號: " + id);
+        }
+        return optimisticRetry.executeOnce(() -> overwriteTask(userId, id, taskDetails));
+    }
+    
+    private Task overwriteTask(Long userId, Long id, Task taskDetails) {
+        Optional<Task> optionalTask = taskRepository.findByIdAndUserId(id, userId);
         if (optionalTask.isPresent()) {
             Task task = optionalTask.get();
+            if (!taskDetails.getVersion().equals(task.getVersion())) {
+                throw new ObjectOptimisticLockingFailureException(Task.class, id);
+            }
+            Task previous = task.copy();
             task.setTitle(taskDetails.getTitle());
             task.setDescription(taskDetails.getDescription());
             task.setStartTime(taskDetails.getStartTime());
@@ -45,203 +191,589 @@ public class TaskService {
             task.setCategory(taskDetails.getCategory());
             task.setColor(taskDetails.getColor());
             task.setAllDay(taskDetails.isAllDay());
-            return taskRepository.save(task);
+            return saveAndPublish(task, previous);
         }
         return null;
     }
     
-    // 删除任务
-    public boolean deleteTask(Long id) {
-        if (taskRepository.existsById(id)) {
-            taskRepository.deleteById(id);
+    /**
+     * 部分更新任务：只寫入補丁中出現的欄位，單條 UPDATE 語句完成
+     * 
+     * @return 是否已更新；任務不存在或不屬於該用戶時返回false
+     * @throws IllegalArgumentException 補丁清空了必填欄位時
+     * @throws ObjectOptimisticLockingFailureException 補丁帶版本號且與資料庫不一致時
+     */
+    public boolean patchTask(Long userId, Long id, TaskPatch patch) {
+        patch.validate();
+        if (patch.isEmpty()) {
+            return taskRepository.existsByIdAndUserId(id, userId);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (taskPatchWriter.apply(userId, id, patch, now) > 0) {
+            eventPublisher.publishEvent(TaskChangeEvent.patched(userId, id, patch, now));
             return true;
         }
+        // 只在更新失敗時區分「不存在」與「版本衝突」
+        if (patch.getVersion() != null && taskRepository.existsByIdAndUserId(id, userId)) {
+            throw new ObjectOptimisticLockingFailureException(Task.class, id);
+        }
         return false;
     }
     
-    // 根据状态获取任务
-    public List<Task> getTasksByStatus(Task.Status status) {
-        return taskRepository.findByStatus(status);
+    /**
+     * 批量执行任务操作
+     * 所有操作在同一事務內按請求順序執行：連續的 CREATE 合併為一次JDBC批次插入，
+     * 整體更新的髒實體在下一次 flush 時批次寫出；事件在提交後才發佈
+     * 
+     * @return 各操作的結果，順序與請求一致
+     * @throws IllegalArgumentException 操作數超過 MAX_BULK_SIZE 時
+     * @throws TaskBatchException 任一操作不合法、任務不存在或版本衝突時，整批回滾
+     */
+    public List<TaskBatchResult> applyBatch(Long userId, List<TaskBatchOperation> operations) {
+        if (operations.size() > MAX_BULK_SIZE) {
+            throw new IllegalArgumentException("單次最多處理 " + MAX_BULK_SIZE + " 個操作");
+        }
+        // 先檢查全部操作，不合法的批次不執行任何寫入
+        for (int i = 0; i < operations.size(); i++) {
+            try {
+                operations.get(i).validate();
+            } catch (IllegalArgumentException e) {
+                throw new TaskBatchException(i, 400, e.getMessage());
+            }
+        }
+        List<TaskBatchResult> results = new ArrayList<>(operations.size());
+        int i = 0;
+        while (i < operations.size()) {
+            if (operations.get(i).getOp() == TaskBatchOperation.Type.CREATE) {
+                List<Task> tasks = new ArrayList<>();
+                int start = i;
+                while (i < operations.size() && operations.get(i).getOp() == TaskBatchOperation.Type.CREATE) {
+                    tasks.add(operations.get(i).getTask());
+                    i++;
+                }
+                List<Task> created = createTasks(userId, tasks);
+                for (int k = 0; k < created.size(); k++) {
+                    results.add(TaskBatchResult.created(start + k, created.get(k)));
+                }
+            } else {
+                results.add(applyOperation(userId, i, operations.get(i)));
+                i++;
+            }
+        }
+        return results;
     }
     
-    // 根据优先级获取任务
-    public List<Task> getTasksByPriority(Task.Priority priority) {
-        return taskRepository.findByPriority(priority);
+    /**
+     * 執行批量操作中除 CREATE 以外的單個操作
+     */
+    private TaskBatchResult applyOperation(Long userId, int index, TaskBatchOperation operation) {
+        Long id = operation.getId();
+        boolean found;
+        try {
+            switch (operation.getOp()) {
+                case UPDATE:
+                    Task updated = updateTask(userId, id, operation.getTask());
+                    if (updated != null) {
+                        return TaskBatchResult.updated(index, updated);
+                    }
+                    found = false;
+                    break;
+                case PATCH:
+                    found = patchTask(userId, id, operation.getPatch());
+                    break;
+                case STATUS:
+                    found = updateTaskStatus(userId, id, operation.getStatus());
+                    break;
+                case DELETE:
+                    found = deleteTask(userId, id);
+                    break;
+                default:
+                    throw new TaskBatchException(index, 400, "不支持的操作類型: " + operation.getOp());
+            }
+        } catch (ObjectOptimisticLockingFailureException e) {
+            throw new TaskBatchException(index, 409, "任務已被其他操作修改: " + id);
+        }
+        if (!found) {
+            throw new TaskBatchException(index, 404, "任務不存在: " + id);
+        }
+        return TaskBatchResult.noContent(index, operation.getOp(), id);
+    }
+    
+    // 删除任务，單條 DELETE 語句，按影響行數判斷任務是否存在
+    public boolean deleteTask(Long userId, Long id) {
+        if (taskRepository.deleteTaskById(id, userId) > 0) {
+            eventPublisher.publishEvent(TaskChangeEvent.deleted(userId, id));
+            return true;
+        }
+        return false;
     }
     
-    // 根据分类获取任务
-    public List<Task> getTasksByCategory(String category) {
-        return taskRepository.findByCategory(category);
+    // 根据状态分頁获取任务
+    @Transactional(readOnly = true)
+    public TaskPage getTasksByStatus(Long userId, Task.Status status, String cursor, int size) {
+        TaskCursor after = TaskCursor.decode(cursor);
+        return TaskPage.of(taskRepository.findPageByStatusAfter(
+            userId, status, after.getStartTime(), after.getId(), pageOf(size)), clampPageSize(size));
     }
     
-    // 获取指定日期范围内的任务
-    public List<Task> getTasksInDateRange(LocalDateTime startDate, LocalDateTime endDate) {
-        return taskRepository.findTasksInDateRange(startDate, endDate);
+    // 根据优先级分頁获取任务
+    @Transactional(readOnly = true)
+    public TaskPage getTasksByPriority(Long userId, Task.Priority priority, String cursor, int size) {
+        TaskCursor after = TaskCursor.decode(cursor);
+        return TaskPage.of(taskRepository.findPageByPriorityAfter(
+            userId, priority, after.getStartTime(), after.getId(), pageOf(size)), clampPageSize(size));
+    }
+    
+    // 根据分类分頁获取任务
+    @Transactional(readOnly = true)
+    public TaskPage getTasksByCategory(Long userId, String category, String cursor, int size) {
+        TaskCursor after = TaskCursor.decode(cursor);
+        return TaskPage.of(taskRepository.findPageByCategoryAfter(
+            userId, category, after.getStartTime(), after.getId(), pageOf(size)), clampPageSize(size));
+    }
+    
+    // 获取与指定日期范围有重疊的任务，endDate 以秒為精度包含在內
+    @Transactional(readOnly = true)
+    public List<Task> getTasksInDateRange(Long userId, LocalDateTime startDate, LocalDateTime endDate) {
+        return getTasksInWindow(userId, startDate, endDate.plusSeconds(1));
     }
     
     // 获取今天的任务
-    public List<Task> getTodayTasks() {
-        return taskRepository.findTodayTasks();
+    @Transactional(readOnly = true)
+    public List<Task> getTodayTasks(Long userId) {
+        LocalDateTime startOfDay = startOfToday();
+        return getTasksInWindow(userId, startOfDay, startOfDay.plusDays(1));
     }
     
     // 获取本周的任务
-    public List<Task> getThisWeekTasks() {
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime startOfWeek = now.with(java.time.DayOfWeek.MONDAY).withHour(0).withMinute(0).withSecond(0).withNano(0);
-        LocalDateTime endOfWeek = startOfWeek.plusDays(6).withHour(23).withMinute(59).withSecond(59);
-        return taskRepository.findThisWeekTasks(startOfWeek, endOfWeek);
+    @Transactional(readOnly = true)
+    public List<Task> getThisWeekTasks(Long userId) {
+        LocalDateTime startOfWeek = startOfThisWeek();
+        return getTasksInWindow(userId, startOfWeek, startOfWeek.plusWeeks(1));
     }
     
     // 获取本月的任务
-    public List<Task> getThisMonthTasks() {
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime startOfMonth = now.withDayOfMonth(1).withHour(0).withMinute(0).withSecond(0).withNano(0);
-        LocalDateTime endOfMonth = startOfMonth.plusMonths(1).minusDays(1).withHour(23).withMinute(59).withSecond(59);
-        return taskRepository.findThisMonthTasks(startOfMonth, endOfMonth);
+    @Transactional(readOnly = true)
+    public List<Task> getThisMonthTasks(Long userId) {
+        LocalDateTime startOfMonth = startOfThisMonth();
+        return getTasksInWindow(userId, startOfMonth, startOfMonth.plusMonths(1));
     }
     
-    // 搜索任务
-    public List<Task> searchTasks(String keyword) {
-        return taskRepository.findByTitleContainingIgnoreCase(keyword);
+    /**
+     * 按天或按小時统计指定日期范围内开始的任务数，endDate 以秒為精度包含在內
+     * 資料列以單條 GROUP BY 查詢統計；虛擬重複系列的實例不在資料庫中，
+     * 只載入窗口內的系列在記憶體中展開後計入
+     * 
+     * @return 有任務的時段，按時間排序
+     * @throws IllegalArgumentException 窗口為空或超過 MAX_DENSITY_DAYS 天時
+     */
+    @Transactional(readOnly = true)
+    public List<TaskDensity> getTaskDensity(Long userId, LocalDateTime startDate, LocalDateTime endDate,
+                                            TaskDensity.Granularity granularity) {
+        LocalDateTime from = startDate;
+        LocalDateTime until = endDate.plusSeconds(1);
+        if (!from.isBefore(until) || from.plusDays(MAX_DENSITY_DAYS).isBefore(until)) {
+            throw new IllegalArgumentException("統計範圍須在 " + MAX_DENSITY_DAYS + " 天以內");
+        }
+        boolean hourly = granularity == TaskDensity.Granularity.HOUR;
+        List<TaskDensityRow> rows = hourly
+            ? taskRepository.countByHour(userId, from, until)
+            : taskRepository.countByDay(userId, from, until);
+        
+        Map<String, TaskDensity> buckets = new TreeMap<>();
+        for (TaskDensityRow row : rows) {
+            densityBucket(buckets, row.getDate(), hourly ? row.getHour() : null)
+                .add(row.getStatus(), row.getPriority(), row.getCount());
+        }
+        for (Task series : taskRepository.findRepeatSeriesInRange(userId, from, until)) {
+            for (Task occurrence : RecurrenceExpander.expand(series, from, until)) {
+                LocalDateTime start = occurrence.getStartTime();
+                if (!start.isBefore(from)) {
+                    densityBucket(buckets, start.toLocalDate(), hourly ? start.getHour() : null)
+                        .add(occurrence.getStatus(), occurrence.getPriority(), 1);
+                }
+            }
+        }
+        return new ArrayList<>(buckets.values());
     }
     
-    // 获取即将到期的任务
-    public List<Task> getUpcomingTasks() {
-        LocalDateTime tomorrow = LocalDateTime.now().plusDays(1);
-        return taskRepository.findUpcomingTasks(tomorrow);
+    /**
+     * 取得時段的統計，鍵按 日期/小時 排序
+     */
+    private static TaskDensity densityBucket(Map<String, TaskDensity> buckets, LocalDate date, Integer hour) {
+        String key = hour == null ? date.toString() : date + String.format("T%02d", hour);
+        return buckets.computeIfAbsent(key, k -> new TaskDensity(date, hour));
+    }
+    
+    /**
+     * 日期范围视图的版本，與 getTasksInDateRange 使用相同的窗口
+     * 以下各視圖版本只執行一條聚合查詢，用於條件請求判斷內容是否變化
+     */
+    @Transactional(readOnly = true)
+    public CalendarVersion getDateRangeVersion(Long userId, LocalDateTime startDate, LocalDateTime endDate) {
+        return getWindowVersion(userId, startDate, endDate.plusSeconds(1));
     }
     
-    // 获取过期任务
-    public List<Task> getOverdueTasks() {
-        return taskRepository.findOverdueTasks();
+    @Transactional(readOnly = true)
+    public CalendarVersion getTodayVersion(Long userId) {
+        LocalDateTime startOfDay = startOfToday();
+        return getWindowVersion(userId, startOfDay, startOfDay.plusDays(1));
     }
     
-    // 标记任务为完成
-    public Task markTaskAsCompleted(Long id) {
-        Optional<Task> optionalTask = taskRepository.findById(id);
-        if (optionalTask.isPresent()) {
-            Task task = optionalTask.get();
-            task.setStatus(Task.Status.COMPLETED);
-            return taskRepository.save(task);
+    @Transactional(readOnly = true)
+    public CalendarVersion getThisWeekVersion(Long userId) {
+        LocalDateTime startOfWeek = startOfThisWeek();
+        return getWindowVersion(userId, startOfWeek, startOfWeek.plusWeeks(1));
+    }
+    
+    @Transactional(readOnly = true)
+    public CalendarVersion getThisMonthVersion(Long userId) {
+        LocalDateTime startOfMonth = startOfThisMonth();
+        return getWindowVersion(userId, startOfMonth, startOfMonth.plusMonths(1));
+    }
+    
+    /**
+     * 增量同步：返回變更序號 since 之後寫入及刪除的任務
+     * 先讀取當前序號作為新令牌，再讀取變更；之間提交的寫入可能在下次同步時重複返回，但不會遺漏。
+     * since 為空時只返回令牌；令牌無效、早於已清理的刪除記錄或變更超過 MAX_SYNC_CHANGES 時返回 reset
+     * 
+     * @param since 上次同步返回的令牌
+     */
+    @Transactional(readOnly = true)
+    public TaskChanges getChanges(Long userId, String since) {
+        long token = userRepository.findChangeSeq(userId).orElse(0L);
+        if (since == null || since.isEmpty()) {
+            return TaskChanges.tokenOnly(token, false);
         }
-        return null;
+        long sinceSeq;
+        try {
+            sinceSeq = Long.parseLong(since);
+        } catch (NumberFormatException e) {
+            return TaskChanges.tokenOnly(token, true);
+        }
+        if (sinceSeq < 0 || sinceSeq > token) {
+            return TaskChanges.tokenOnly(token, true);
+        }
+        if (sinceSeq == token) {
+            return TaskChanges.tokenOnly(token, false);
+        }
+        // 令牌之後的刪除記錄可能已超過保留期被清理
+        if (sinceSeq < userRepository.findTombstonesPurgedSeq(userId).orElse(0L)) {
+            return TaskChanges.tokenOnly(token, true);
+        }
+        
+        PageRequest limit = PageRequest.of(0, MAX_SYNC_CHANGES + 1);
+        List<Task> tasks = taskRepository.findChangedSince(userId, sinceSeq, limit);
+        List<TaskTombstone> tombstones = tombstoneRepository.findByUserSince(userId, sinceSeq, limit);
+        if (tasks.size() + tombstones.size() > MAX_SYNC_CHANGES) {
+            return TaskChanges.tokenOnly(token, true);
+        }
+        List<Long> deleted = new ArrayList<>();
+        List<TaskChanges.SeriesDeletion> seriesDeleted = new ArrayList<>();
+        for (TaskTombstone tombstone : tombstones) {
+            if (tombstone.isSeries()) {
+                seriesDeleted.add(new TaskChanges.SeriesDeletion(tombstone.getTaskId(), tombstone.getFromTime()));
+            } else {
+                deleted.add(tombstone.getTaskId());
+            }
+        }
+        return new TaskChanges(Long.toString(token), false, tasks, deleted, seriesDeleted);
     }
     
-    // 更新任务状态
-    public Task updateTaskStatus(Long id, Task.Status status) {
-        Optional<Task> optionalTask = taskRepository.findById(id);
-        if (optionalTask.isPresent()) {
-            Task task = optionalTask.get();
-            task.setStatus(status);
-            return taskRepository.save(task);
+    private CalendarVersion getWindowVersion(Long userId, LocalDateTime from, LocalDateTime until) {
+        return taskRepository.findWindowVersion(userId, from, until).scopedTo(userId, from, until);
+    }
+    
+    private static LocalDateTime startOfToday() {
+        return LocalDateTime.now().toLocalDate().atStartOfDay();
+    }
+    
+    private static LocalDateTime startOfThisWeek() {
+        return LocalDateTime.now().toLocalDate().with(java.time.DayOfWeek.MONDAY).atStartOfDay();
+    }
+    
+    private static LocalDateTime startOfThisMonth() {
+        return LocalDateTime.now().toLocalDate().withDayOfMonth(1).atStartOfDay();
+    }
+    
+    /**
+     * 获取用户与半開區間 [from, until) 有重疊的任务，包含虛擬重複系列在窗口內展開的實例
+     * 先查快取；未命中時區間索引可用則由記憶體回答，否則查詢資料庫
+     */
+    private List<Task> getTasksInWindow(Long userId, LocalDateTime from, LocalDateTime until) {
+        return taskCache.getWindow(userId, from, until, () -> loadTasksInWindow(userId, from, until));
+    }
+    
+    private List<Task> loadTasksInWindow(Long userId, LocalDateTime from, LocalDateTime until) {
+        List<Task> tasks;
+        List<Task> series;
+        if (intervalIndex != null && intervalIndex.isReady()) {
+            tasks = intervalIndex.findOverlapping(userId, from, until);
+            series = intervalIndex.findRepeatSeries(userId, from, until);
+        } else {
+            tasks = taskRepository.findTasksInDateRange(userId, from, until);
+            series = taskRepository.findRepeatSeriesInRange(userId, from, until);
         }
-        return null;
+        return withOccurrences(tasks, series, from, until);
+    }
+    
+    /**
+     * 分頁搜索任务，匹配标题、描述及分类
+     * 搜索索引可用時按相關度排序並以排名偏移量分頁；
+     * 否則退回資料庫模糊查詢，按 (startTime, id) 鍵集分頁。
+     * 查詢詞太短、索引無法完整回答時同樣退回資料庫查詢，不返回截斷的排名結果。
+     * 在索引載入前取得的鍵集令牌仍沿用資料庫查詢，翻頁不會中斷
+     */
+    @Transactional(readOnly = true)
+    public TaskPage searchTasks(Long userId, String keyword, String cursor, int size) {
+        int pageSize = clampPageSize(size);
+        String keysetCursor = cursor;
+        if (searchIndex != null && searchIndex.isReady() && SearchCursor.isRankToken(cursor)) {
+            int offset = SearchCursor.decode(cursor);
+            List<Task> ranked = searchIndex.search(userId, keyword, offset, pageSize + 1);
+            if (ranked != null) {
+                return TaskPage.ofRanked(ranked, offset, pageSize);
+            }
+            // 查詢詞太短、命中的詞過多時索引不回答，改用資料庫模糊查詢，從第一頁開始按時間分頁
+            keysetCursor = null;
+        }
+        TaskCursor after = TaskCursor.decode(keysetCursor);
+        return TaskPage.of(taskRepository.findPageByKeywordAfter(
+            userId, keyword, after.getStartTime(), after.getId(), pageOf(size)), pageSize);
+    }
+    
+    /**
+     * 展開虛擬系列在窗口內的實例，並與實際任務合併
+     */
+    private List<Task> withOccurrences(List<Task> tasks, List<Task> series,
+                                       LocalDateTime from, LocalDateTime until) {
+        List<Task> occurrences = new ArrayList<>();
+        for (Task repeatSeries : series) {
+            occurrences.addAll(RecurrenceExpander.expand(repeatSeries, from, until));
+        }
+        return withOccurrences(tasks, occurrences);
+    }
+    
+    /**
+     * 合併實際任務與虛擬實例，按開始時間排序
+     */
+    private List<Task> withOccurrences(List<Task> tasks, List<Task> occurrences) {
+        if (occurrences.isEmpty()) {
+            return tasks;
+        }
+        List<Task> merged = new ArrayList<>(tasks.size() + occurrences.size());
+        merged.addAll(tasks);
+        merged.addAll(occurrences);
+        merged.sort(Comparator.comparing(Task::getStartTime));
+        return merged;
+    }
+    
+    /**
+     * 設定任務所屬用戶，只建立引用，不查詢用戶表
+     */
+    private void assignOwner(Long userId, Task task) {
+        task.setUser(userRepository.getReferenceById(userId));
+        task.setUserId(userId);
+    }
+    
+    /**
+     * 保存新任務並發佈變更事件，供記憶體索引及快取同步
+     */
+    private Task saveAndPublish(Task task) {
+        return saveAndPublish(task, null);
+    }
+    
+    /**
+     * 保存任務並發佈變更事件
+     * 
+     * @param previous 修改前的快照，用於使舊時間區間的快取失效；新任務為null
+     */
+    private Task saveAndPublish(Task task, Task previous) {
+        Task saved = taskRepository.save(task);
+        eventPublisher.publishEvent(TaskChangeEvent.saved(saved, previous));
+        return saved;
+    }
+    
+    /**
+     * 將請求的每頁筆數限制在 1 到 MAX_PAGE_SIZE 之間
+     */
+    private int clampPageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+    
+    /**
+     * 多取一筆，用於判斷是否還有下一頁
+     */
+    private Pageable pageOf(int size) {
+        return PageRequest.of(0, clampPageSize(size) + 1);
+    }
+    
+    // 获取即将到期的任务
+    @Transactional(readOnly = true)
+    public List<Task> getUpcomingTasks(Long userId) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime tomorrow = now.plusDays(1);
+        List<Task> occurrences = new ArrayList<>();
+        for (Task series : taskRepository.findRepeatSeriesInRange(userId, now, tomorrow)) {
+            for (Task occurrence : RecurrenceExpander.expand(series, now, tomorrow)) {
+                if (!occurrence.getStartTime().isBefore(now)) {
+                    occurrences.add(occurrence);
+                }
+            }
+        }
+        return withOccurrences(taskRepository.findUpcomingTasks(userId, now, tomorrow), occurrences);
+    }
+    
+    // 获取过期任务：過期索引可用時直接返回維護中的集合，否則查詢資料庫
+    @Transactional(readOnly = true)
+    public List<Task> getOverdueTasks(Long userId) {
+        if (overdueIndex != null && overdueIndex.isReady()) {
+            return overdueIndex.findOverdue(userId);
+        }
+        return taskRepository.findOverdueTasks(userId, LocalDateTime.now());
+    }
+    
+    // 标记任务为完成，單條 UPDATE 語句，只寫 status 欄位
+    public boolean markTaskAsCompleted(Long userId, Long id) {
+        return updateTaskStatus(userId, id, Task.Status.COMPLETED);
+    }
+    
+    // 更新任务状态，單條 UPDATE 語句，只寫 status 欄位
+    public boolean updateTaskStatus(Long userId, Long id, Task.Status status) {
+        return patchTask(userId, id, TaskPatch.status(status));
+    }
+    
+    /**
+     * 批量标记任务为完成，單條 UPDATE 語句完成
+     * 
+     * @param ids 任務ID，不屬於該用戶的ID會被忽略
+     * @return 更新的任務數
+     * @throws IllegalArgumentException ID數量超過 MAX_BULK_SIZE 時
+     */
+    public int completeTasks(Long userId, List<Long> requestedIds) {
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(requestedIds));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        if (ids.size() > MAX_BULK_SIZE) {
+            throw new IllegalArgumentException("單次最多處理 " + MAX_BULK_SIZE + " 個任務");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        int updated = taskRepository.completeAll(userId, ids, now);
+        if (updated > 0) {
+            TaskPatch patch = TaskPatch.status(Task.Status.COMPLETED);
+            for (Long id : ids) {
+                eventPublisher.publishEvent(TaskChangeEvent.patched(userId, id, patch, now));
+            }
+        }
+        return updated;
     }
     
     /**
      * 創建重複任務
-     * 根據重複類型和間隔創建多個重複的任務
+     * 只在原始任務上保存重複規則，實例在查詢時按需展開，
+     * 每個系列的寫入成本固定為一次更新
      * 
-     * @param originalTask 原始任務
+     * @param originalTask 原始任務，須為調用方已核對歸屬的任務
      * @param repeatType 重複類型
      * @param repeatInterval 重複間隔
      * @param repeatEndDate 重複結束日期
-     * @return 創建的任務列表
+     * @return 系列展開後的實例列表（不含原始任務）
      */
     public List<Task> createRepeatingTasks(Task originalTask, Task.RepeatType repeatType, 
                                          Integer repeatInterval, LocalDateTime repeatEndDate) {
-        List<Task> createdTasks = new ArrayList<>();
-        
-        if (repeatType == Task.RepeatType.NONE || repeatInterval <= 0) {
-            return createdTasks;
-        }
-        
-        LocalDateTime currentDate = originalTask.getStartTime();
-        LocalDateTime endDate = repeatEndDate != null ? repeatEndDate : 
-                               currentDate.plusYears(1); // 默認重複一年
-        
-        int taskCount = 0;
-        int maxTasks = 1000; // 防止無限循環
-        
-        while (currentDate.isBefore(endDate) && taskCount < maxTasks) {
-            if (taskCount > 0) { // 跳過第一個任務（原始任務）
-                Task repeatingTask = new Task();
-                repeatingTask.setTitle(originalTask.getTitle());
-                repeatingTask.setDescription(originalTask.getDescription());
-                repeatingTask.setStartTime(currentDate);
-                repeatingTask.setEndTime(calculateEndTime(originalTask, currentDate));
-                repeatingTask.setPriority(originalTask.getPriority());
-                repeatingTask.setStatus(Task.Status.PENDING);
-                repeatingTask.setCategory(originalTask.getCategory());
-                repeatingTask.setColor(originalTask.getColor());
-                repeatingTask.setAllDay(originalTask.isAllDay());
-                repeatingTask.setRepeatType(Task.RepeatType.NONE); // 重複任務本身不再重複
-                repeatingTask.setOriginalTaskId(originalTask.getId());
-                
-                createdTasks.add(taskRepository.save(repeatingTask));
-            }
-            
-            // 計算下一個重複日期
-            currentDate = calculateNextRepeatDate(currentDate, repeatType, repeatInterval);
-            taskCount++;
-        }
-        
-        return createdTasks;
+        return createRepeatingTasks(originalTask, repeatType, repeatInterval, repeatEndDate, false);
     }
     
     /**
-     * 計算重複任務的結束時間
-     * 保持原始任務的持續時間
+     * 創建重複任務
+     * materialize為true時把實例物化為獨立的資料列（可單獨編輯），
+     * 通過批量寫入路徑一次性插入；否則只保存規則
+     * 
+     * @param materialize 是否物化實例
+     * @return 系列的實例列表（不含原始任務），物化時為已插入的任務
      */
-    private LocalDateTime calculateEndTime(Task originalTask, LocalDateTime newStartTime) {
-        if (originalTask.getEndTime() == null) {
-            return null;
+    public List<Task> createRepeatingTasks(Task originalTask, Task.RepeatType repeatType, 
+                                         Integer repeatInterval, LocalDateTime repeatEndDate,
+                                         boolean materialize) {
+        if (repeatType == Task.RepeatType.NONE || repeatInterval <= 0) {
+            return new ArrayList<>();
         }
         
-        long durationInSeconds = java.time.Duration.between(
-            originalTask.getStartTime(), 
-            originalTask.getEndTime()
-        ).getSeconds();
+        Task previous = originalTask.copy();
+        originalTask.setRepeatType(repeatType);
+        originalTask.setRepeatInterval(repeatInterval);
+        originalTask.setRepeatEndDate(repeatEndDate != null ? repeatEndDate :
+                                      originalTask.getStartTime().plusYears(1)); // 默認重複一年
+        originalTask.setRepeatMaterialized(false);
+        List<Task> occurrences = RecurrenceExpander.expandAll(originalTask);
+        
+        if (!materialize) {
+            saveAndPublish(originalTask, previous);
+            return occurrences;
+        }
         
-        return newStartTime.plusSeconds(durationInSeconds);
+        originalTask.setRepeatMaterialized(true);
+        Task series = saveAndPublish(originalTask, previous);
+        for (Task occurrence : occurrences) {
+            occurrence.setOriginalTaskId(series.getId());
+        }
+        return createTasks(series.getUserId(), occurrences);
     }
     
     /**
-     * 計算下一個重複日期
-     * 根據重複類型和間隔計算
+     * 獲取重複任務
+     * 根據原始任務ID獲取所有相關的重複任務：已物化的實例及虛擬系列展開的實例
      */
-    private LocalDateTime calculateNextRepeatDate(LocalDateTime currentDate, 
-                                                Task.RepeatType repeatType, 
-                                                Integer repeatInterval) {
-        switch (repeatType) {
-            case DAILY:
-                return currentDate.plusDays(repeatInterval);
-            case WEEKLY:
-                return currentDate.plusWeeks(repeatInterval);
-            case MONTHLY:
-                return currentDate.plusMonths(repeatInterval);
-            case YEARLY:
-                return currentDate.plusYears(repeatInterval);
-            default:
-                return currentDate;
-        }
+    @Transactional(readOnly = true)
+    public List<Task> getRepeatingTasks(Long userId, Long originalTaskId) {
+        List<Task> occurrences = taskRepository.findByIdAndUserId(originalTaskId, userId)
+            .map(RecurrenceExpander::expandAll)
+            .orElseGet(ArrayList::new);
+        return withOccurrences(taskRepository.findByOriginalTaskIdAndUserId(originalTaskId, userId), occurrences);
     }
     
     /**
-     * 獲取重複任務
-     * 根據原始任務ID獲取所有相關的重複任務
+     * 刪除重複任務
+     * 刪除指定原始任務的所有重複任務；虛擬系列則清除重複規則
+     * 
+     * @return 刪除的實例數
      */
-    public List<Task> getRepeatingTasks(Long originalTaskId) {
-        return taskRepository.findByOriginalTaskId(originalTaskId);
+    public int deleteRepeatingTasks(Long userId, Long originalTaskId) {
+        return deleteRepeatingTasks(userId, originalTaskId, null);
     }
     
     /**
      * 刪除重複任務
-     * 刪除指定原始任務的所有重複任務
+     * 刪除系列中從指定時間開始（含）的重複任務，from為null時刪除整個系列。
+     * 已物化的實例以單條 DELETE 語句刪除；虛擬系列則把結束日期截斷到from
+     * 
+     * @param userId 用戶ID
+     * @param originalTaskId 原始任務ID
+     * @param from 起始時間，null表示整個系列
+     * @return 刪除的實例數：已物化的資料列數加上虛擬系列截斷後不再展開的實例數
      */
-    public boolean deleteRepeatingTasks(Long originalTaskId) {
-        List<Task> repeatingTasks = taskRepository.findByOriginalTaskId(originalTaskId);
-        taskRepository.deleteAll(repeatingTasks);
-        return true;
+    public int deleteRepeatingTasks(Long userId, Long originalTaskId, LocalDateTime from) {
+        int truncated = taskRepository.findByIdAndUserId(originalTaskId, userId)
+            .filter(RecurrenceExpander::isVirtualSeries)
+            .map(series -> {
+                Task previous = series.copy();
+                if (from == null || !from.isAfter(series.getStartTime())) {
+                    series.setRepeatType(Task.RepeatType.NONE);
+                } else if (series.getRepeatEndDate() == null || series.getRepeatEndDate().isAfter(from)) {
+                    series.setRepeatEndDate(from);
+                }
+                saveAndPublish(series, previous);
+                return RecurrenceExpander.countOccurrences(previous) - RecurrenceExpander.countOccurrences(series);
+            })
+            .orElse(0);
+        
+        int deleted = from == null
+            ? taskRepository.deleteSeries(originalTaskId, userId)
+            : taskRepository.deleteSeriesFrom(originalTaskId, userId, from);
+        if (deleted > 0) {
+            eventPublisher.publishEvent(TaskChangeEvent.seriesDeleted(userId, originalTaskId, from));
+        }
+        return truncated + deleted;
     }
 }
\ No newline at end of file
@@ -0,0 +1,49 @@
+package com.taskmanager.service;
+
+import com.taskmanager.model.Task;
+import com.taskmanager.repository.TaskRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * 任務流式讀取服務
+ *
+ * 功能說明：
+ * - 在只讀事務內以資料庫遊標逐批讀取任務（每批 fetch size 筆）
+ * - 每筆任務交給調用方處理後即從持久化上下文分離，記憶體佔用不隨任務數增長
+ * - 調用方在回調中直接寫出響應，首個位元組無需等待整個列表載入
+ */
+@Service
+public class TaskStreamReader {
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * 按 (startTime, id) 順序逐筆處理用戶的任務
+     *
+     * @param status 狀態過濾，null表示不過濾
+     * @param priority 優先級過濾，null表示不過濾
+     * @param category 分類過濾，null表示不過濾
+     * @param consumer 逐筆處理任務的回調
+     */
+    @Transactional(readOnly = true)
+    public void forEach(Long userId, Task.Status status, Task.Priority priority, String category,
+                        Consumer<Task> consumer) {
+        try (Stream<Task> tasks = taskRepository.streamByUser(userId, status, priority, category)) {
+            tasks.forEach(task -> {
+                consumer.accept(task);
+                entityManager.detach(task);
+            });
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.taskmanager.service;
+
+import com.taskmanager.repository.TaskTombstoneRepository;
+import com.taskmanager.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 任務刪除記錄的定期清理
+ *
+ * 功能說明：
+ * - 刪除記錄只用於增量同步，保留 retention-days 天，計時線程每 purge-interval-minutes 分鐘清理一次
+ * - 清理前把即將刪除的記錄中最大的變更序號記到用戶上，與刪除在同一事務內完成；
+ *   早於該序號的同步令牌返回 reset，客戶端重新完整載入，不會錯過已清理的刪除
+ * - 長期未同步的客戶端因此需要完整載入一次，換取刪除記錄表不再無限增長
+ *
+ * retention-days 設為 0 時不清理
+ */
+@Component
+public class TaskTombstonePurger {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskTombstonePurger.class);
+
+    private final UserRepository userRepository;
+    private final TaskTombstoneRepository tombstoneRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int retentionDays;
+    private final long intervalMinutes;
+    private final ScheduledExecutorService purger;
+
+    public TaskTombstonePurger(UserRepository userRepository, TaskTombstoneRepository tombstoneRepository,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${app.sync.tombstone-retention-days:30}") int retentionDays,
+                               @Value("${app.sync.purge-interval-minutes:60}") long intervalMinutes) {
+        this.userRepository = userRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retentionDays = retentionDays;
+        this.intervalMinutes = Math.max(1, intervalMinutes);
+        this.purger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "tombstone-purger");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (retentionDays <= 0) {
+            logger.info("刪除記錄清理已關閉");
+            return;
+        }
+        purger.scheduleWithFixedDelay(this::purgeQuietly, 0, intervalMinutes, TimeUnit.MINUTES);
+    }
+
+    /**
+     * 清理超過保留期的刪除記錄
+     *
+     * @return 刪除的記錄數
+     */
+    public int purge() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        return transactionTemplate.execute(status -> {
+            int users = userRepository.markTombstonesPurged(cutoff);
+            int deleted = tombstoneRepository.deleteOlderThan(cutoff);
+            if (deleted > 0) {
+                logger.info("清理 {} 筆 {} 之前的刪除記錄，涉及 {} 個用戶", deleted, cutoff, users);
+            }
+            return deleted;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        purger.shutdownNow();
+    }
+
+    private void purgeQuietly() {
+        try {
+            purge();
+        } catch (RuntimeException e) {
+            logger.warn("清理刪除記錄失敗，下次重試", e);
+        }
+    }
+}
@@ -6,6 +6,7 @@ import com.taskmanager.dto.UserLoginDto;
 import com.taskmanager.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
@@ -23,6 +24,15 @@ public class UserService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private OptimisticRetry optimisticRetry;
+
+    /**
+     * 最後登入時間的延遲寫入緩衝，僅在 app.last-login.write-behind=true 時存在
+     */
+    @Autowired(required = false)
+    private LastLoginWriteBehind lastLoginWriteBehind;
+
     /**
      * 用戶註冊
      */
@@ -51,6 +61,7 @@ public class UserService {
 
     /**
      * 用戶登入
+     * 最後登入時間交給延遲寫入緩衝，認證路徑上不寫資料庫；緩衝關閉時同步寫入
      */
     public Optional<User> loginUser(UserLoginDto loginDto) {
         // 根據用戶名或郵箱查找用戶
@@ -69,8 +80,9 @@ public class UserService {
             // 驗證密碼（暫時使用明文比較，生產環境需要加密）
             if (loginDto.getPassword().equals(user.getPassword())) {
                 // 更新最後登入時間
-                user.setLastLoginAt(LocalDateTime.now());
-                userRepository.save(user);
+                LocalDateTime now = LocalDateTime.now();
+                user.setLastLoginAt(now);
+                recordLogin(user.getId(), now);
                 return userOpt;
             }
         }
@@ -78,6 +90,14 @@ public class UserService {
         return Optional.empty();
     }
 
+    private void recordLogin(Long userId, LocalDateTime lastLoginAt) {
+        if (lastLoginWriteBehind != null) {
+            lastLoginWriteBehind.record(userId, lastLoginAt);
+        } else {
+            userRepository.updateLastLoginAt(userId, lastLoginAt);
+        }
+    }
+
     /**
      * 根據ID查找用戶
      */
@@ -108,8 +128,14 @@ public class UserService {
 
     /**
      * 更新用戶資料
+     * 只覆蓋請求中出現的欄位，與登入等併發寫入衝突時重新讀取後重試
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public User updateUser(Long userId, User userDetails) {
+        return optimisticRetry.execute(() -> applyProfile(userId, userDetails));
+    }
+
+    private User applyProfile(Long userId, User userDetails) {
         User user = userRepository.findById(userId)
             .orElseThrow(() -> new RuntimeException("用戶不存在"));
 
@@ -2,6 +2,9 @@
 
 # 重複任務功能測試腳本
 # 用於測試新增的重複任務API
+# 任務按用戶隔離，請求以 X-User-Id 標頭指定用戶（預設為1，可用環境變數 USER_ID 覆蓋）
+
+USER_ID=${USER_ID:-1}
 
 echo "🧪 開始測試重複任務功能..."
 echo "=================================="
@@ -12,7 +15,7 @@ sleep 5
 
 # 測試1：創建一個基本任務
 echo "📝 測試1：創建基本任務"
-TASK_RESPONSE=$(curl -s -X POST http://localhost:8080/api/tasks \
+TASK_RESPONSE=$(curl -s -H "X-User-Id: $USER_ID" -X POST http://localhost:8080/api/tasks \
   -H "Content-Type: application/json" \
   -d '{
     "title": "測試任務",
@@ -37,7 +40,7 @@ echo "✅ 任務創建成功，ID: $TASK_ID"
 
 # 測試2：創建每日重複任務
 echo "🔄 測試2：創建每日重複任務"
-REPEAT_RESPONSE=$(curl -s -X POST "http://localhost:8080/api/tasks/$TASK_ID/repeat?repeatType=DAILY&repeatInterval=1" \
+REPEAT_RESPONSE=$(curl -s -H "X-User-Id: $USER_ID" -X POST "http://localhost:8080/api/tasks/$TASK_ID/repeat?repeatType=DAILY&repeatInterval=1" \
   -H "Content-Type: application/json")
 
 echo "重複任務創建響應: $REPEAT_RESPONSE"
@@ -51,26 +54,26 @@ fi
 
 # 測試3：創建每週重複任務
 echo "📅 測試3：創建每週重複任務"
-WEEKLY_RESPONSE=$(curl -s -X POST "http://localhost:8080/api/tasks/$TASK_ID/repeat?repeatType=WEEKLY&repeatInterval=1" \
+WEEKLY_RESPONSE=$(curl -s -H "X-User-Id: $USER_ID" -X POST "http://localhost:8080/api/tasks/$TASK_ID/repeat?repeatType=WEEKLY&repeatInterval=1" \
   -H "Content-Type: application/json")
 
 echo "每週重複任務創建響應: $WEEKLY_RESPONSE"
 
 # 測試4：獲取重複任務
 echo "📋 測試4：獲取重複任務"
-REPEATING_TASKS=$(curl -s "http://localhost:8080/api/tasks/$TASK_ID/repeating")
+REPEATING_TASKS=$(curl -s -H "X-User-Id: $USER_ID" "http://localhost:8080/api/tasks/$TASK_ID/repeating")
 
 echo "重複任務列表: $REPEATING_TASKS"
 
 # 測試5：獲取所有任務
 echo "📊 測試5：獲取所有任務"
-ALL_TASKS=$(curl -s "http://localhost:8080/api/tasks")
+ALL_TASKS=$(curl -s -H "X-User-Id: $USER_ID" "http://localhost:8080/api/tasks")
 
 echo "所有任務數量: $(echo $ALL_TASKS | grep -o '"id":[0-9]*' | wc -l)"
 
 # 測試6：創建帶結束日期的重複任務
 echo "⏰ 測試6：創建帶結束日期的重複任務"
-END_DATE_RESPONSE=$(curl -s -X POST "http://localhost:8080/api/tasks/$TASK_ID/repeat?repeatType=DAILY&repeatInterval=1&repeatEndDate=2024-09-16%2000:00:00" \
+END_DATE_RESPONSE=$(curl -s -H "X-User-Id: $USER_ID" -X POST "http://localhost:8080/api/tasks/$TASK_ID/repeat?repeatType=DAILY&repeatInterval=1&repeatEndDate=2024-09-16%2000:00:00" \
   -H "Content-Type: application/json")
 
 echo "帶結束日期的重複任務響應: $END_DATE_RESPONSE"